@@ -0,0 +1,89 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Eventos do JDK Flight Recorder para os caminhos quentes do cliente. Sem gravação ativa o custo é só o
+// shouldCommit(); para gravar: java -XX:StartFlightRecording:filename=eldhttp.jfr ... e abrir no JMC.
+final class ClientEvents {
+
+    private ClientEvents() {
+    }
+
+    // Registrar a primeira classe de evento custa ~150 ms de startup (metadados + instrumentação), então
+    // os caminhos usados pelo CLI só criam eventos depois que o Flight Recorder foi iniciado
+    static boolean enabled() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Name("eldhttp.Exchange")
+    @Label("HTTP Exchange")
+    @Category("ELDHttp")
+    @StackTrace(false)
+    static class Exchange extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("URL")
+        String url;
+
+        @Label("Status")
+        int status;
+
+        @Label("Bytes Out")
+        @DataAmount
+        long bytesOut;
+
+        @Label("Bytes In")
+        @DataAmount
+        long bytesIn;
+
+        @Label("Bytes Decoded")
+        @DataAmount
+        long bytesDecoded;
+
+        @Label("Build Time")
+        @Timespan
+        long buildNanos;
+
+        @Label("Time To First Byte")
+        @Timespan
+        long firstByteNanos;
+
+        @Label("Download Time")
+        @Timespan
+        long downloadNanos;
+    }
+
+    @Name("eldhttp.Format")
+    @Label("Response Format")
+    @Category("ELDHttp")
+    @StackTrace(false)
+    static class Format extends Event {
+        @Label("Kind")
+        String kind;
+
+        @Label("Bytes In")
+        @DataAmount
+        long bytesIn;
+
+        @Label("Chars Out")
+        long charsOut;
+    }
+
+    @Name("eldhttp.HistoryWrite")
+    @Label("History Write")
+    @Category("ELDHttp")
+    @StackTrace(false)
+    static class HistoryWrite extends Event {
+        @Label("Position")
+        int position;
+
+        @Label("Duplicate")
+        boolean duplicate;
+    }
+}
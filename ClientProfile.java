@@ -0,0 +1,128 @@
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+// Configuração de um HttpClient. Gravada em profiles.properties como profile.<nome>.<chave>=valor:
+//
+// version   HTTP_1_1 | HTTP_2
+// executor  virtual | default | fixed:<threads>
+// connectTimeout  segundos
+// redirect  NEVER | NORMAL | ALWAYS
+// proxy     vazio | system | host:porta
+// trust     all | system
+// warmConnections  conexões abertas pelo Warm Up
+public class ClientProfile {
+
+    final String name;
+    HttpClient.Version version = HttpClient.Version.HTTP_2;
+    String executor = "virtual";
+    Duration connectTimeout = Duration.ofSeconds(10);
+    HttpClient.Redirect redirect = HttpClient.Redirect.NEVER;
+    String proxy = "";
+    String trust = "all";
+    int warmConnections = 4;
+
+    public ClientProfile(String name) {
+        this.name = name;
+    }
+
+    static ClientProfile read(String name, Properties properties) {
+        ClientProfile profile = new ClientProfile(name);
+        String prefix = "profile." + name + ".";
+        String value = properties.getProperty(prefix + "version");
+        if (value != null) {
+            profile.version = HttpClient.Version.valueOf(value.strip().toUpperCase(Locale.ROOT));
+        }
+        profile.executor = properties.getProperty(prefix + "executor", profile.executor).strip();
+        value = properties.getProperty(prefix + "connectTimeout");
+        if (value != null) {
+            profile.connectTimeout = Duration.ofSeconds(Long.parseLong(value.strip()));
+        }
+        value = properties.getProperty(prefix + "redirect");
+        if (value != null) {
+            profile.redirect = HttpClient.Redirect.valueOf(value.strip().toUpperCase(Locale.ROOT));
+        }
+        profile.proxy = properties.getProperty(prefix + "proxy", profile.proxy).strip();
+        profile.trust = properties.getProperty(prefix + "trust", profile.trust).strip();
+        value = properties.getProperty(prefix + "warmConnections");
+        if (value != null) {
+            profile.warmConnections = Math.max(1, Integer.parseInt(value.strip()));
+        }
+        return profile;
+    }
+
+    void write(Properties properties) {
+        String prefix = "profile." + name + ".";
+        properties.setProperty(prefix + "version", version.name());
+        properties.setProperty(prefix + "executor", executor);
+        properties.setProperty(prefix + "connectTimeout", String.valueOf(connectTimeout.toSeconds()));
+        properties.setProperty(prefix + "redirect", redirect.name());
+        properties.setProperty(prefix + "proxy", proxy);
+        properties.setProperty(prefix + "trust", trust);
+        properties.setProperty(prefix + "warmConnections", String.valueOf(warmConnections));
+    }
+
+    // virtualThreads é o executor compartilhado do serviço, usado quando executor=virtual
+    HttpClient build(ExecutorService virtualThreads) throws Exception {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .followRedirects(redirect)
+                .sslContext(trust.equals("system") ? SSLContext.getDefault() : trustAll());
+        if (executor.equals("virtual")) {
+            builder.executor(virtualThreads);
+        } else if (executor.startsWith("fixed:")) {
+            int threads = Integer.parseInt(executor.substring("fixed:".length()).strip());
+            builder.executor(Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().factory()));
+        } else if (!executor.equals("default")) {
+            throw new IllegalArgumentException("Unknown executor '" + executor + "' in profile " + name);
+        }
+        if (proxy.equals("system")) {
+            builder.proxy(ProxySelector.getDefault());
+        } else if (!proxy.isEmpty()) {
+            int colon = proxy.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Proxy must be host:port in profile " + name);
+            }
+            builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.substring(0, colon),
+                    Integer.parseInt(proxy.substring(colon + 1)))));
+        }
+        return builder.build();
+    }
+
+    // Aceita qualquer certificado (comportamento original do cliente, útil para ambientes de teste)
+    private static SSLContext trustAll() throws Exception {
+        TrustManager trust509 = new X509TrustManager() {
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+        };
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[] { trust509 }, new SecureRandom());
+        return sslContext;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+// Perfis de cliente lidos de profiles.properties. Cada HttpClient é criado na primeira vez que o perfil
+// é usado e reaproveitado depois, então conexões e sessões TLS continuam abertas entre um envio e outro.
+public class ClientProfiles {
+
+    public static final String DEFAULT = "default";
+    // Quanto um cliente substituído pode levar para terminar as trocas em andamento
+    private static final Duration CLOSE_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Path file;
+    private final ExecutorService virtualThreads;
+    private final Map<String, ClientProfile> profiles = new LinkedHashMap<>();
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private FileTime loadedAt; // data do arquivo na última leitura ou gravação
+
+    public ClientProfiles(Path file, ExecutorService virtualThreads) throws IOException {
+        this.file = file;
+        this.virtualThreads = virtualThreads;
+        if (Files.exists(file)) {
+            load();
+        } else {
+            // Primeiro uso: perfis padrão só na memória; a janela grava o arquivo de exemplo (writeDefaults),
+            // o CLI nunca cria arquivos no diretório de quem o chamou
+            ClientProfile http1 = new ClientProfile("http1");
+            http1.version = HttpClient.Version.HTTP_1_1;
+            ClientProfile strict = new ClientProfile("strict");
+            strict.trust = "system";
+            strict.redirect = HttpClient.Redirect.NORMAL;
+            profiles.put(DEFAULT, new ClientProfile(DEFAULT));
+            profiles.put(http1.name, http1);
+            profiles.put(strict.name, strict);
+        }
+    }
+
+    // Grava os perfis atuais se o arquivo ainda não existe, para servir de exemplo
+    public synchronized void writeDefaults() throws IOException {
+        if (!Files.exists(file)) {
+            save();
+        }
+    }
+
+    // Erro no arquivo não mexe nos perfis atuais nem em loadedAt: a próxima reloadIfChanged tenta de novo
+    public synchronized void load() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            String[] parts = key.split("\\.");
+            if (parts.length == 3 && parts[0].equals("profile")) {
+                names.add(parts[1]);
+            }
+        }
+        Map<String, ClientProfile> loaded = new LinkedHashMap<>();
+        try {
+            loaded.put(DEFAULT, ClientProfile.read(DEFAULT, properties));
+            for (String name : names) {
+                loaded.putIfAbsent(name, ClientProfile.read(name, properties));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid " + file + ": " + e.getMessage(), e);
+        }
+        profiles.clear();
+        profiles.putAll(loaded);
+        loadedAt = modified;
+        // Clientes antigos terminam o que já estão fazendo; os próximos envios usam a configuração nova
+        for (String name : new ArrayList<>(clients.keySet())) {
+            shutdown(clients.remove(name));
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        Properties properties = new Properties();
+        profiles.values().forEach(profile -> profile.write(properties));
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, "HTTP client profiles, see ClientProfile.java for the keys");
+        }
+        loadedAt = Files.getLastModifiedTime(file);
+    }
+
+    // Relê o arquivo só se ele foi editado desde a última leitura
+    public synchronized boolean reloadIfChanged() throws IOException {
+        if (!Files.exists(file) || Files.getLastModifiedTime(file).equals(loadedAt)) {
+            return false;
+        }
+        load();
+        return true;
+    }
+
+    public synchronized List<String> names() {
+        return new ArrayList<>(profiles.keySet());
+    }
+
+    public synchronized ClientProfile get(String name) {
+        ClientProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown client profile " + name);
+        }
+        return profile;
+    }
+
+    public HttpClient client(String name) {
+        ClientProfile profile = get(name);
+        return clients.computeIfAbsent(name, key -> {
+            try {
+                return profile.build(virtualThreads);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    // Abre conexões com a origem da URL antes do primeiro envio real: um HEAD por conexão, em paralelo,
+    // para o pool do HttpClient já ter TCP + TLS (e, no HTTP/2, a conexão multiplexada) prontos
+    public CompletableFuture<String> warmUp(String name, String url) {
+        URI target = URI.create(url);
+        URI origin = URI.create(target.getScheme() + "://" + target.getRawAuthority() + "/");
+        HttpClient client = client(name);
+        int connections = get(name).version == HttpClient.Version.HTTP_2 ? 1 : get(name).warmConnections;
+        HttpRequest request = HttpRequest.newBuilder(origin)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> requests = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            HttpResponse<Void> response = requests.get(0).join();
+            return String.format("Warmed %d connection(s) to %s over %s in %.1f ms", connections,
+                    origin.getAuthority(), response.version(), (System.nanoTime() - start) / 1e6);
+        });
+    }
+
+    // O executor próprio (fixed:) só é fechado depois que o cliente terminou as trocas em andamento
+    private void shutdown(HttpClient client) {
+        if (client == null) {
+            return;
+        }
+        client.shutdown();
+        client.executor().filter(executor -> executor != virtualThreads && executor instanceof ExecutorService)
+                .ifPresent(executor -> virtualThreads.execute(() -> {
+                    try {
+                        client.awaitTermination(CLOSE_TIMEOUT);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        ((ExecutorService) executor).shutdown();
+                    }
+                }));
+    }
+}
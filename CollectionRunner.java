@@ -0,0 +1,249 @@
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Executa os passos de uma coleção como um DAG: passos independentes rodam em paralelo (limitado por
+// parallelism) e um passo só começa depois dos que ele referencia via "after" ou via {{variável}}.
+public class CollectionRunner {
+
+    private final HttpClientService service;
+    private final int parallelism;
+    private final Duration timeout;
+
+    public CollectionRunner(HttpClientService service, int parallelism, Duration timeout) {
+        this.service = service;
+        this.parallelism = Math.max(1, parallelism);
+        this.timeout = timeout;
+    }
+
+    public Report run(RequestCollection collection, Map<String, String> initialVariables) {
+        Map<String, Set<String>> dependencies = dependencies(collection);
+        Map<String, String> variables = new ConcurrentHashMap<>(initialVariables);
+        Map<String, StepResult> results = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<StepResult>> futures = new HashMap<>();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory());
+        try {
+            for (RequestCollection.Step step : order(collection, dependencies)) {
+                CompletableFuture<?>[] upstream = dependencies.get(step.name).stream().map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+                futures.put(step.name, CompletableFuture.allOf(upstream).thenApplyAsync(ignored -> {
+                    StepResult result = new StepResult(step.name);
+                    for (String dependency : dependencies.get(step.name)) {
+                        if (!results.get(dependency).ok()) {
+                            result.error = "skipped, " + dependency + " failed";
+                            return record(results, result, start);
+                        }
+                    }
+                    execute(step, variables, result, start);
+                    return record(results, result, start);
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        Report report = new Report();
+        report.wallNanos = System.nanoTime() - start;
+        for (RequestCollection.Step step : collection.steps) {
+            report.results.add(results.get(step.name));
+        }
+        report.criticalPath = criticalPath(results, dependencies);
+        report.variables = new TreeMap<>(variables);
+        return report;
+    }
+
+    private void execute(RequestCollection.Step step, Map<String, String> variables, StepResult result, long start) {
+        result.startNanos = System.nanoTime() - start;
+        try {
+            RequestTemplate.Rendered rendered = RequestTemplate.compile(step.request).render(variables);
+            // Como no envio normal: {{nome}} sem valor não vai literal para o servidor
+            if (!rendered.missing.isEmpty()) {
+                result.error = "no value for " + String.join(", ", rendered.missing);
+                return;
+            }
+            HttpResponse<ResponseBody> response = service.sendEntry(rendered, timeout);
+            result.status = response.statusCode();
+            try {
+                for (RequestCollection.Extraction extraction : step.extractions) {
+                    String value = extraction.source.equals("header")
+                            ? response.headers().firstValue(extraction.expression).orElse(null)
+                            : HttpClientService.extract(response.body(), extraction.expression);
+                    if (value == null) {
+                        result.error = "nothing found for " + extraction.variable + " (" + extraction.expression + ")";
+                    } else {
+                        variables.put(extraction.variable, value);
+                        result.extracted.put(extraction.variable, value);
+                    }
+                }
+            } finally {
+                response.body().discard();
+            }
+            if (result.error == null && result.status >= 400) {
+                result.error = "HTTP " + result.status;
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            result.error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        }
+    }
+
+    private static StepResult record(Map<String, StepResult> results, StepResult result, long start) {
+        result.endNanos = System.nanoTime() - start;
+        if (result.startNanos < 0) {
+            result.startNanos = result.endNanos;
+        }
+        results.put(result.name, result);
+        return result;
+    }
+
+    // Dependências explícitas (after) + implícitas: quem usa {{x}} depende de quem extrai x
+    static Map<String, Set<String>> dependencies(RequestCollection collection) {
+        Map<String, String> producers = new HashMap<>();
+        for (RequestCollection.Step step : collection.steps) {
+            for (RequestCollection.Extraction extraction : step.extractions) {
+                producers.put(extraction.variable, step.name);
+            }
+        }
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        for (RequestCollection.Step step : collection.steps) {
+            Set<String> upstream = new LinkedHashSet<>();
+            for (String after : step.after) {
+                if (collection.stepNamed(after) == null) {
+                    throw new IllegalArgumentException("Step " + step.name + " is after unknown step " + after);
+                }
+                upstream.add(after);
+            }
+            for (String variable : RequestTemplate.compile(step.request).variables()) {
+                String producer = producers.get(variable);
+                if (producer != null && !producer.equals(step.name)) {
+                    upstream.add(producer);
+                }
+            }
+            dependencies.put(step.name, upstream);
+        }
+        return dependencies;
+    }
+
+    // Ordem topológica (Kahn); ciclo é erro
+    private static List<RequestCollection.Step> order(RequestCollection collection,
+            Map<String, Set<String>> dependencies) {
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        dependencies.forEach((step, upstream) -> {
+            pending.put(step, upstream.size());
+            upstream.forEach(u -> dependents.computeIfAbsent(u, k -> new ArrayList<>()).add(step));
+        });
+        Deque<String> ready = new ArrayDeque<>();
+        pending.forEach((step, count) -> {
+            if (count == 0) {
+                ready.add(step);
+            }
+        });
+        List<RequestCollection.Step> ordered = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            ordered.add(collection.stepNamed(name));
+            for (String dependent : dependents.getOrDefault(name, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ordered.size() != collection.steps.size()) {
+            throw new IllegalArgumentException("Collection has a dependency cycle");
+        }
+        return ordered;
+    }
+
+    // Caminho que determinou o tempo total: parte do passo que terminou por último e volta sempre
+    // pela dependência que terminou mais tarde
+    private static List<String> criticalPath(Map<String, StepResult> results, Map<String, Set<String>> dependencies) {
+        LinkedList<String> path = new LinkedList<>();
+        String current = results.values().stream().max(Comparator.comparingLong(r -> r.endNanos)).map(r -> r.name)
+                .orElse(null);
+        while (current != null) {
+            path.addFirst(current);
+            current = dependencies.get(current).stream().max(Comparator.comparingLong(d -> results.get(d).endNanos))
+                    .orElse(null);
+        }
+        return path;
+    }
+
+    public static class StepResult {
+        final String name;
+        int status;
+        String error;
+        long startNanos = -1;
+        long endNanos;
+        Map<String, String> extracted = new LinkedHashMap<>();
+
+        public StepResult(String name) {
+            this.name = name;
+        }
+
+        public boolean ok() {
+            return error == null;
+        }
+    }
+
+    public static class Report {
+        long wallNanos;
+        List<StepResult> results = new ArrayList<>();
+        List<String> criticalPath = new ArrayList<>();
+        Map<String, String> variables = new TreeMap<>();
+
+        public boolean ok() {
+            return results.stream().allMatch(StepResult::ok);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            long busy = 0;
+            for (StepResult result : results) {
+                long took = result.endNanos - result.startNanos;
+                busy += took;
+                sb.append(String.format("%-4s %-30s %4s %8.1f ms  (start +%.1f ms)%s%n", result.ok() ? "OK" : "FAIL",
+                        result.name, result.status > 0 ? result.status : "-", took / 1e6, result.startNanos / 1e6,
+                        result.error != null ? "  " + result.error : ""));
+                result.extracted.forEach((k, v) -> sb.append("       ").append(k).append(" = ")
+                        .append(v.length() > 80 ? v.substring(0, 80) + "..." : v).append("\n"));
+            }
+            sb.append(String.format("%nWall time: %.1f ms (sum of steps %.1f ms)%n", wallNanos / 1e6, busy / 1e6));
+            sb.append("Critical path: ").append(String.join(" -> ", criticalPath)).append("\n");
+            return sb.toString();
+        }
+    }
+
+    // Uso: java CollectionRunner <arquivo.collection> [--parallel N] [--timeout segundos] [--var nome=valor]...
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: CollectionRunner <file> [--parallel N] [--timeout s] [--var name=value]...");
+            System.exit(2);
+        }
+        int parallelism = 8;
+        Duration timeout = Duration.ofSeconds(30);
+        Map<String, String> variables = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--parallel" -> parallelism = Integer.parseInt(args[++i]);
+                case "--timeout" -> timeout = Duration.ofSeconds(Long.parseLong(args[++i]));
+                case "--var" -> {
+                    String[] kv = args[++i].split("=", 2);
+                    variables.put(kv[0], kv.length > 1 ? kv[1] : "");
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        RequestCollection collection = RequestCollection.load(Paths.get(args[0]));
+        Report report = new CollectionRunner(new HttpClientService(), parallelism, timeout).run(collection,
+                variables);
+        System.out.print(report);
+        System.exit(report.ok() ? 0 : 1);
+    }
+}
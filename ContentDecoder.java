@@ -0,0 +1,241 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+// Descompacta um corpo gzip ou deflate pedaço a pedaço, na ordem em que chega da rede, sem thread nem
+// InputStream no meio. O buffer de saída é reaproveitado: o Sink precisa consumir tudo antes de voltar.
+class ContentDecoder {
+
+    private static final int OUTPUT_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    interface Sink {
+        void accept(ByteBuffer decoded) throws IOException;
+    }
+
+    private enum State {
+        HEADER, BODY, TRAILER, DONE
+    }
+
+    private final String encoding;
+    private final boolean gzip;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer output = ByteBuffer.allocate(OUTPUT_SIZE);
+    private Inflater inflater;
+    private State state = State.HEADER;
+    private byte[] pending = new byte[16]; // cabeçalho ou trailer ainda incompleto
+    private int pendingCount;
+    private long memberSize;
+    private boolean started;
+
+    private ContentDecoder(String encoding) {
+        this.encoding = encoding;
+        this.gzip = !encoding.equals("deflate");
+    }
+
+    // null para identity e para codificações que não sabemos abrir (o corpo fica como veio)
+    static ContentDecoder forEncoding(String contentEncoding) {
+        String encoding = contentEncoding.strip().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new ContentDecoder("gzip");
+            case "deflate" -> new ContentDecoder("deflate");
+            default -> null;
+        };
+    }
+
+    String encoding() {
+        return encoding;
+    }
+
+    void decode(ByteBuffer in, Sink sink) throws IOException {
+        started |= in.hasRemaining();
+        while (in.hasRemaining()) {
+            switch (state) {
+                case HEADER -> {
+                    if (gzip ? !readGzipHeader(in) : !readZlibHeader(in, sink)) {
+                        return;
+                    }
+                }
+                case BODY -> inflate(in, sink);
+                case TRAILER -> {
+                    if (!gather(in, 8)) {
+                        return;
+                    }
+                    checkTrailer();
+                }
+                case DONE -> {
+                    // Outro membro gzip concatenado; qualquer outra coisa depois do fim é ignorada
+                    if (gzip && in.get(in.position()) == (byte) 0x1f) {
+                        state = State.HEADER;
+                    } else {
+                        in.position(in.limit());
+                    }
+                }
+            }
+        }
+    }
+
+    void finish() throws IOException {
+        end();
+        if (started && state != State.DONE) {
+            throw new EOFException("Truncated " + encoding + " body");
+        }
+    }
+
+    void end() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    private boolean readGzipHeader(ByteBuffer in) throws IOException {
+        int length = -1;
+        while (length < 0 && in.hasRemaining()) {
+            append(in.get());
+            length = gzipHeaderLength();
+        }
+        if (length < 0) {
+            return false;
+        }
+        pendingCount = 0;
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        } else {
+            inflater.reset();
+        }
+        crc.reset();
+        memberSize = 0;
+        state = State.BODY;
+        return true;
+    }
+
+    // Tamanho do cabeçalho gzip (RFC 1952) já acumulado em pending, ou -1 se ainda faltam bytes
+    private int gzipHeaderLength() throws IOException {
+        byte[] h = pending;
+        int n = pendingCount;
+        if ((n >= 1 && h[0] != (byte) 0x1f) || (n >= 2 && h[1] != (byte) 0x8b)) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (n >= 3 && h[2] != 8) {
+            throw new ZipException("Unsupported GZIP compression method " + h[2]);
+        }
+        if (n < 10) {
+            return -1;
+        }
+        int flags = h[3] & 0xff;
+        int position = 10;
+        if ((flags & 4) != 0) { // FEXTRA
+            if (n < position + 2) {
+                return -1;
+            }
+            position += 2 + ((h[position] & 0xff) | (h[position + 1] & 0xff) << 8);
+        }
+        if ((flags & 8) != 0) { // FNAME
+            position = afterZero(h, n, position);
+        }
+        if ((flags & 16) != 0 && position >= 0) { // FCOMMENT
+            position = afterZero(h, n, position);
+        }
+        if (position < 0) {
+            return -1; // nome ou comentário ainda incompleto
+        }
+        if ((flags & 2) != 0) { // FHCRC
+            position += 2;
+        }
+        return n >= position ? position : -1;
+    }
+
+    private static int afterZero(byte[] h, int n, int from) {
+        for (int i = from; i < n; i++) {
+            if (h[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // "deflate" deveria vir com o envelope zlib, mas muitos servidores mandam o deflate cru: decide pelo
+    // cabeçalho de 2 bytes e devolve esses bytes ao inflater
+    private boolean readZlibHeader(ByteBuffer in, Sink sink) throws IOException {
+        if (!gather(in, 2)) {
+            return false;
+        }
+        int cmf = pending[0] & 0xff;
+        int flg = pending[1] & 0xff;
+        boolean zlib = (cmf & 0x0f) == 8 && (cmf << 8 | flg) % 31 == 0;
+        inflater = new Inflater(!zlib);
+        state = State.BODY;
+        ByteBuffer header = ByteBuffer.wrap(pending, 0, 2);
+        pendingCount = 0;
+        inflate(header, sink);
+        return true;
+    }
+
+    private void inflate(ByteBuffer in, Sink sink) throws IOException {
+        inflater.setInput(in);
+        try {
+            while (true) {
+                output.clear();
+                int n = inflater.inflate(output);
+                if (n > 0) {
+                    output.flip();
+                    if (gzip) {
+                        crc.update(output.duplicate());
+                    }
+                    memberSize += n;
+                    sink.accept(output);
+                }
+                if (inflater.finished()) {
+                    state = gzip ? State.TRAILER : State.DONE;
+                    return;
+                }
+                if (inflater.needsDictionary()) {
+                    throw new ZipException("Preset dictionaries are not supported");
+                }
+                if (n == 0) {
+                    return; // precisa de mais entrada
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid " + encoding + " data: " + e.getMessage());
+        }
+    }
+
+    private void checkTrailer() throws IOException {
+        long crc32 = littleEndian(0);
+        long size = littleEndian(4);
+        pendingCount = 0;
+        if (crc32 != crc.getValue()) {
+            throw new ZipException("Corrupt GZIP trailer (CRC mismatch)");
+        }
+        if (size != (memberSize & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer (size mismatch)");
+        }
+        state = State.DONE;
+    }
+
+    private long littleEndian(int offset) {
+        return (pending[offset] & 0xffL) | (pending[offset + 1] & 0xffL) << 8 | (pending[offset + 2] & 0xffL) << 16
+                | (pending[offset + 3] & 0xffL) << 24;
+    }
+
+    private boolean gather(ByteBuffer in, int count) {
+        while (pendingCount < count && in.hasRemaining()) {
+            append(in.get());
+        }
+        return pendingCount == count;
+    }
+
+    private void append(byte b) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = b;
+    }
+}
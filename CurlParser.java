@@ -0,0 +1,471 @@
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Lê comandos curl como o bash leria (aspas simples, duplas e $'...', barra invertida, continuação de
+// linha, comentários) numa passada só, sem regex. Fora de aspas, quebra de linha, ; & e | terminam o
+// comando, então um arquivo com milhares de "Copy as cURL" vira uma lista de comandos.
+public class CurlParser {
+
+    // Opções curtas que recebem valor e o nome longo equivalente
+    private static final Map<Character, String> SHORT_WITH_VALUE = Map.ofEntries(Map.entry('X', "--request"),
+            Map.entry('H', "--header"), Map.entry('d', "--data"), Map.entry('F', "--form"), Map.entry('u', "--user"),
+            Map.entry('A', "--user-agent"), Map.entry('e', "--referer"), Map.entry('b', "--cookie"),
+            Map.entry('T', "--upload-file"), Map.entry('o', "--output"), Map.entry('m', "--max-time"),
+            Map.entry('x', "--proxy"), Map.entry('w', "--write-out"), Map.entry('c', "--cookie-jar"),
+            Map.entry('r', "--range"), Map.entry('E', "--cert"), Map.entry('U', "--proxy-user"));
+    private static final Map<Character, String> SHORT_FLAGS = Map.of('G', "--get", 'I', "--head");
+    // Não mudam a requisição que vamos montar
+    private static final String IGNORED_SHORT_FLAGS = "sSvkLigfN#46OJ";
+    private static final Set<String> IGNORED_FLAGS = Set.of("--silent", "--show-error", "--verbose", "--insecure",
+            "--location", "--location-trusted", "--include", "--compressed", "--globoff", "--fail", "--fail-with-body",
+            "--no-buffer", "--http1.0", "--http1.1", "--http2", "--http2-prior-knowledge", "--progress-bar", "--ipv4",
+            "--ipv6", "--remote-name", "--remote-header-name", "--no-keepalive", "--tr-encoding", "--raw", "--tcp-nodelay",
+            "--path-as-is", "--no-progress-meter");
+    private static final Set<String> IGNORED_WITH_VALUE = Set.of("--output", "--max-time", "--connect-timeout",
+            "--proxy", "--write-out", "--retry", "--retry-delay", "--retry-max-time", "--cookie-jar", "--range",
+            "--cacert", "--capath", "--cert", "--key", "--resolve", "--connect-to", "--limit-rate", "--proxy-user",
+            "--max-redirs", "--interface", "--dns-servers", "--config", "--trace", "--trace-ascii", "--stderr");
+
+    private CurlParser() {
+    }
+
+    public static HttpClientService.ParsedCurl parse(String command) {
+        for (List<String> tokens : commands(command)) {
+            if (isCurl(tokens)) {
+                return parse(tokens, null);
+            }
+        }
+        throw new IllegalArgumentException("No curl command found");
+    }
+
+    static boolean isCurl(List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return false;
+        }
+        String program = tokens.get(0);
+        int slash = Math.max(program.lastIndexOf('/'), program.lastIndexOf('\\'));
+        program = program.substring(slash + 1).toLowerCase(Locale.ROOT);
+        return program.equals("curl") || program.equals("curl.exe");
+    }
+
+    // Todos os comandos do texto, já divididos em argumentos
+    public static List<List<String>> commands(CharSequence text) {
+        List<List<String>> commands = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean inToken = false;
+        int n = text.length();
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\'' -> {
+                    int end = indexOf(text, '\'', i + 1);
+                    token.append(text, i + 1, end);
+                    i = end;
+                    inToken = true;
+                }
+                case '"' -> {
+                    i = doubleQuoted(text, i + 1, token);
+                    inToken = true;
+                }
+                case '$' -> {
+                    if (i + 1 < n && text.charAt(i + 1) == '\'') {
+                        i = ansiQuoted(text, i + 2, token);
+                    } else {
+                        token.append(c);
+                    }
+                    inToken = true;
+                }
+                case '\\' -> {
+                    // \ + quebra de linha é continuação; fora disso escapa o próximo caractere
+                    if (i + 1 < n && text.charAt(i + 1) == '\n') {
+                        i++;
+                    } else if (i + 2 < n && text.charAt(i + 1) == '\r' && text.charAt(i + 2) == '\n') {
+                        i += 2;
+                    } else if (i + 1 < n) {
+                        token.append(text.charAt(++i));
+                        inToken = true;
+                    }
+                }
+                case ' ', '\t', '\r' -> {
+                    inToken = endToken(token, inToken, current);
+                }
+                case '\n', ';', '&', '|' -> {
+                    inToken = endToken(token, inToken, current);
+                    if (!current.isEmpty()) {
+                        commands.add(current);
+                        current = new ArrayList<>();
+                    }
+                }
+                case '#' -> {
+                    if (inToken) {
+                        token.append(c);
+                    } else {
+                        while (i + 1 < n && text.charAt(i + 1) != '\n') {
+                            i++;
+                        }
+                    }
+                }
+                default -> {
+                    token.append(c);
+                    inToken = true;
+                }
+            }
+        }
+        endToken(token, inToken, current);
+        if (!current.isEmpty()) {
+            commands.add(current);
+        }
+        return commands;
+    }
+
+    private static boolean endToken(StringBuilder token, boolean inToken, List<String> current) {
+        if (inToken) {
+            current.add(token.toString());
+            token.setLength(0);
+        }
+        return false;
+    }
+
+    private static int indexOf(CharSequence text, char quote, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == quote) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unclosed " + quote + " starting near: " + excerpt(text, from - 1));
+    }
+
+    // Dentro de "..." a barra só escapa $ ` " \ e a quebra de linha
+    private static int doubleQuoted(CharSequence text, int from, StringBuilder token) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(i + 1);
+                if (next == '\n') {
+                    i++;
+                    continue;
+                }
+                if (next == '$' || next == '`' || next == '"' || next == '\\') {
+                    token.append(next);
+                    i++;
+                    continue;
+                }
+            }
+            token.append(c);
+        }
+        throw new IllegalArgumentException("Unclosed \" starting near: " + excerpt(text, from - 1));
+    }
+
+    // $'...' (usado pelo "Copy as cURL" dos navegadores quando o corpo tem caracteres especiais)
+    private static int ansiQuoted(CharSequence text, int from, StringBuilder token) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                return i;
+            }
+            if (c != '\\' || i + 1 >= text.length()) {
+                token.append(c);
+                continue;
+            }
+            char e = text.charAt(++i);
+            switch (e) {
+                case 'n' -> token.append('\n');
+                case 't' -> token.append('\t');
+                case 'r' -> token.append('\r');
+                case 'a' -> token.append('\007');
+                case 'b' -> token.append('\b');
+                case 'e', 'E' -> token.append('\033');
+                case 'f' -> token.append('\f');
+                case 'v' -> token.append('\013');
+                case 'x' -> i = hex(text, i + 1, 2, token) - 1;
+                case 'u' -> i = hex(text, i + 1, 4, token) - 1;
+                case 'U' -> i = hex(text, i + 1, 8, token) - 1;
+                case '0', '1', '2', '3', '4', '5', '6', '7' -> {
+                    int end = i;
+                    int value = 0;
+                    while (end < text.length() && end < i + 3 && text.charAt(end) >= '0' && text.charAt(end) <= '7') {
+                        value = value * 8 + text.charAt(end++) - '0';
+                    }
+                    token.append((char) value);
+                    i = end - 1;
+                }
+                default -> token.append(e); // \\ \' \" \?
+            }
+        }
+        throw new IllegalArgumentException("Unclosed $' starting near: " + excerpt(text, from - 2));
+    }
+
+    private static int hex(CharSequence text, int from, int maxDigits, StringBuilder token) {
+        int end = from;
+        int value = 0;
+        while (end < text.length() && end < from + maxDigits && Character.digit(text.charAt(end), 16) >= 0) {
+            value = value * 16 + Character.digit(text.charAt(end++), 16);
+        }
+        if (end == from) {
+            token.append('\\').append(text.charAt(from - 1));
+        } else {
+            token.appendCodePoint(value);
+        }
+        return end;
+    }
+
+    private static String excerpt(CharSequence text, int from) {
+        int start = Math.max(0, from);
+        return text.subSequence(start, Math.min(text.length(), start + 40)).toString().replace('\n', ' ');
+    }
+
+    // Arquivos de @arquivo são resolvidos a partir de baseDir (null = diretório atual)
+    public static HttpClientService.ParsedCurl parse(List<String> tokens, Path baseDir) {
+        HttpClientService.ParsedCurl parsed = new HttpClientService.ParsedCurl();
+        List<String> data = new ArrayList<>();
+        String method = null;
+        boolean get = false;
+        boolean head = false;
+        boolean json = false;
+        boolean urlEncoded = false;
+        String upload = null;
+        for (int i = 1; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String option;
+            String value = null;
+            if (token.startsWith("--") && token.length() > 2) {
+                int equals = token.indexOf('=');
+                option = equals > 0 ? token.substring(0, equals) : token;
+                value = equals > 0 ? token.substring(equals + 1) : null;
+            } else if (token.startsWith("-") && token.length() > 1) {
+                // Opções curtas agrupadas (-sSL) e valor colado (-XPOST)
+                option = null;
+                for (int j = 1; j < token.length() && option == null; j++) {
+                    char c = token.charAt(j);
+                    if (SHORT_WITH_VALUE.containsKey(c)) {
+                        option = SHORT_WITH_VALUE.get(c);
+                        value = j + 1 < token.length() ? token.substring(j + 1) : null;
+                    } else if (SHORT_FLAGS.containsKey(c)) {
+                        get |= c == 'G';
+                        head |= c == 'I';
+                    } else if (IGNORED_SHORT_FLAGS.indexOf(c) < 0) {
+                        parsed.warnings.add("ignored option -" + c);
+                    }
+                }
+                if (option == null) {
+                    continue;
+                }
+            } else {
+                if (parsed.url == null) {
+                    parsed.url = token;
+                } else {
+                    parsed.warnings.add("ignored extra argument " + token);
+                }
+                continue;
+            }
+
+            if (option.equals("--get") || option.equals("--head")) {
+                get |= option.equals("--get");
+                head |= option.equals("--head");
+                continue;
+            }
+            if (IGNORED_FLAGS.contains(option)) {
+                continue;
+            }
+            if (!IGNORED_WITH_VALUE.contains(option) && !takesValue(option)) {
+                parsed.warnings.add("ignored option " + option);
+                continue;
+            }
+            if (value == null) {
+                if (i + 1 >= tokens.size()) {
+                    throw new IllegalArgumentException(option + " needs a value");
+                }
+                value = tokens.get(++i);
+            }
+            switch (option) {
+                case "--request" -> method = value.toUpperCase(Locale.ROOT);
+                case "--header" -> header(parsed, value);
+                case "--data", "--data-ascii" -> {
+                    // curl tira as quebras de linha do arquivo no -d @arquivo
+                    data.add(value.startsWith("@") ? read(value.substring(1), baseDir).replaceAll("[\r\n]", "")
+                            : value);
+                    urlEncoded = true;
+                }
+                case "--data-raw" -> {
+                    data.add(value);
+                    urlEncoded = true;
+                }
+                case "--data-binary" -> {
+                    data.add(value.startsWith("@") ? read(value.substring(1), baseDir) : value);
+                    urlEncoded = true;
+                }
+                case "--data-urlencode" -> {
+                    data.add(urlEncode(value, baseDir));
+                    urlEncoded = true;
+                }
+                case "--json" -> {
+                    data.add(value.startsWith("@") ? read(value.substring(1), baseDir) : value);
+                    json = true;
+                }
+                case "--form" -> parsed.fields.add(formField(value, baseDir, false));
+                case "--form-string" -> parsed.fields.add(formField(value, baseDir, true));
+                case "--user" -> parsed.headers.add("Authorization: Basic "
+                        + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+                case "--user-agent" -> parsed.headers.add("User-Agent: " + value);
+                case "--referer" -> parsed.headers.add("Referer: " + value);
+                case "--cookie" -> {
+                    if (value.contains("=")) {
+                        parsed.headers.add("Cookie: " + value);
+                    } else {
+                        parsed.warnings.add("ignored cookie file " + value);
+                    }
+                }
+                case "--upload-file" -> upload = read(value, baseDir);
+                case "--url" -> parsed.url = value;
+                default -> {
+                    // IGNORED_WITH_VALUE: o valor já foi consumido
+                }
+            }
+        }
+
+        if (parsed.url == null) {
+            throw new IllegalArgumentException("curl command has no URL");
+        }
+        if (!parsed.url.contains("://")) {
+            parsed.url = "http://" + parsed.url; // curl assume http
+        }
+        if (!parsed.fields.isEmpty() && !data.isEmpty()) {
+            parsed.warnings.add("both form fields and data given, using the form fields");
+            data.clear();
+        }
+        if (get && !data.isEmpty()) {
+            parsed.url += (parsed.url.contains("?") ? "&" : "?") + String.join("&", data);
+            data.clear();
+        }
+        if (!data.isEmpty()) {
+            parsed.body = String.join(json ? "" : "&", data);
+            if (json) {
+                addDefaultHeader(parsed, "Content-Type", "application/json");
+                addDefaultHeader(parsed, "Accept", "application/json");
+            } else if (urlEncoded) {
+                addDefaultHeader(parsed, "Content-Type", "application/x-www-form-urlencoded");
+            }
+        } else if (upload != null) {
+            parsed.body = upload;
+        }
+        if (method != null) {
+            parsed.method = method;
+        } else if (head) {
+            parsed.method = "HEAD";
+        } else if (get) {
+            parsed.method = "GET";
+        } else if (upload != null && data.isEmpty() && parsed.fields.isEmpty()) {
+            parsed.method = "PUT";
+        } else if (parsed.body != null || !parsed.fields.isEmpty()) {
+            parsed.method = "POST";
+        }
+        return parsed;
+    }
+
+    private static boolean takesValue(String option) {
+        return switch (option) {
+            case "--request", "--header", "--data", "--data-ascii", "--data-raw", "--data-binary", "--data-urlencode",
+                    "--json", "--form", "--form-string", "--user", "--user-agent", "--referer", "--cookie",
+                    "--upload-file", "--url" -> true;
+            default -> false;
+        };
+    }
+
+    private static void header(HttpClientService.ParsedCurl parsed, String header) {
+        int colon = header.indexOf(':');
+        // "Nome:" remove um header interno do curl e "Nome;" manda vazio: nada a importar
+        if (colon <= 0 || header.substring(colon + 1).isBlank()) {
+            return;
+        }
+        parsed.headers.add(header.substring(0, colon).strip() + ": " + header.substring(colon + 1).strip());
+    }
+
+    private static void addDefaultHeader(HttpClientService.ParsedCurl parsed, String name, String value) {
+        for (String header : parsed.headers) {
+            if (header.regionMatches(true, 0, name + ":", 0, name.length() + 1)) {
+                return;
+            }
+        }
+        parsed.headers.add(name + ": " + value);
+    }
+
+    // name=valor, =valor, valor, name@arquivo, @arquivo (como o curl)
+    private static String urlEncode(String spec, Path baseDir) {
+        int equals = spec.indexOf('=');
+        int at = spec.indexOf('@');
+        if (at >= 0 && (equals < 0 || at < equals)) {
+            String content = read(spec.substring(at + 1), baseDir);
+            String encoded = URLEncoder.encode(content, StandardCharsets.UTF_8);
+            return at == 0 ? encoded : spec.substring(0, at) + "=" + encoded;
+        }
+        if (equals < 0) {
+            return URLEncoder.encode(spec, StandardCharsets.UTF_8);
+        }
+        String encoded = URLEncoder.encode(spec.substring(equals + 1), StandardCharsets.UTF_8);
+        return equals == 0 ? encoded : spec.substring(0, equals) + "=" + encoded;
+    }
+
+    // name=valor, name=@arquivo[;type=...], name=<arquivo (conteúdo do arquivo como texto)
+    private static HttpClientService.FormField formField(String spec, Path baseDir, boolean literal) {
+        int equals = spec.indexOf('=');
+        if (equals <= 0) {
+            throw new IllegalArgumentException("Form field must be name=value: " + spec);
+        }
+        String name = spec.substring(0, equals);
+        String value = spec.substring(equals + 1);
+        if (!literal && value.startsWith("@")) {
+            String file = value.substring(1).split(";", 2)[0];
+            return new HttpClientService.FormField(name, resolve(file, baseDir).toString(), true);
+        }
+        if (!literal && value.startsWith("<")) {
+            return new HttpClientService.FormField(name, read(value.substring(1).split(";", 2)[0], baseDir), false);
+        }
+        return new HttpClientService.FormField(name, value, false);
+    }
+
+    private static Path resolve(String file, Path baseDir) {
+        Path path = Path.of(file);
+        return baseDir == null || path.isAbsolute() ? path : baseDir.resolve(path);
+    }
+
+    private static String read(String file, Path baseDir) {
+        if (file.equals("-")) {
+            throw new IllegalArgumentException("@- (stdin) is not supported");
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(resolve(file, baseDir));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + file + ": " + e.getMessage(), e);
+        }
+        // O corpo é guardado como texto: bytes que não são UTF-8 virariam U+FFFD sem ninguém perceber
+        try {
+            return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException(file + " is not UTF-8 text; send binary files with -F name=@"
+                    + file);
+        }
+    }
+
+    // Aspas simples para o bash: ' vira '\''
+    public static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+}
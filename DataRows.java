@@ -0,0 +1,210 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Linhas de dados para templates, lidas sob demanda: só a linha atual fica em memória, então o arquivo
+// pode ter qualquer tamanho. CSV/TSV (RFC 4180, primeira linha com os nomes das colunas, campos entre
+// aspas podem ter vírgulas e quebras de linha) ou JSONL (um objeto por linha, cada membro vira variável).
+public class DataRows implements Iterator<DataRows.Row>, Closeable {
+
+    private final Reader reader;
+    private final boolean jsonl;
+    private final char delimiter;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private String[] columns;
+    private Row next;
+
+    private DataRows(Reader reader, String format) throws IOException {
+        this.reader = reader;
+        this.jsonl = format.equals("jsonl");
+        this.delimiter = format.equals("tsv") ? '\t' : ',';
+        if (!jsonl) {
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IOException("Empty data file");
+            }
+            if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+                header.set(0, header.get(0).substring(1));
+            }
+            columns = header.stream().map(String::strip).toArray(String[]::new);
+        }
+        next = advance();
+    }
+
+    // "-" lê do stdin; o formato vem da extensão (.jsonl/.ndjson, .tsv, o resto é CSV) se não for informado
+    public static DataRows open(String file, String format) throws IOException {
+        String name = file.toLowerCase(Locale.ROOT);
+        if (format == null) {
+            format = name.endsWith(".jsonl") || name.endsWith(".ndjson") ? "jsonl" : name.endsWith(".tsv") ? "tsv"
+                    : "csv";
+        }
+        if (!List.of("csv", "tsv", "jsonl").contains(format)) {
+            throw new IllegalArgumentException("Unknown data format " + format);
+        }
+        Reader reader = file.equals("-") ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8);
+        return new DataRows(reader, format);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Row next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        Row current = next;
+        try {
+            next = advance();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row advance() throws IOException {
+        while (true) {
+            int number = line;
+            Row row = new Row(number);
+            if (jsonl) {
+                String text = readLine();
+                if (text == null) {
+                    close();
+                    return null;
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    row.values = JsonPath.members(text);
+                } catch (RuntimeException e) {
+                    row.error = "line " + number + ": " + e.getMessage();
+                }
+                return row;
+            }
+            List<String> record = readRecord();
+            if (record == null) {
+                close();
+                return null;
+            }
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue; // linha em branco
+            }
+            if (record.size() != columns.length) {
+                row.error = "line " + number + ": expected " + columns.length + " columns, found " + record.size();
+                return row;
+            }
+            row.values = new HashMap<>(columns.length * 2);
+            for (int i = 0; i < columns.length; i++) {
+                row.values.put(columns[i], record.get(i));
+            }
+            return row;
+        }
+    }
+
+    // Um registro CSV (pode ocupar várias linhas se tiver aspas); null no fim do arquivo
+    private List<String> readRecord() throws IOException {
+        if (!fill()) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (fill()) {
+            char c = buffer[position++];
+            if (quoted) {
+                if (c == '"') {
+                    if (fill() && buffer[position] == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r' || (fill() && buffer[position] != '\n')) {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unclosed quote in data file near line " + line);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String readLine() throws IOException {
+        if (!fill()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        while (fill()) {
+            char c = buffer[position++];
+            if (c == '\n') {
+                break;
+            }
+            sb.append(c);
+        }
+        line++;
+        int length = sb.length();
+        return length > 0 && sb.charAt(length - 1) == '\r' ? sb.substring(0, length - 1) : sb.toString();
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    public static class Row {
+        final int line;
+        Map<String, String> values;
+        String error;
+
+        public Row(int line) {
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+// Conjuntos de variáveis para os {{templates}}, lidos de environments.properties:
+//
+// env.dev.baseUrl=http://localhost:8080
+// env.prod.baseUrl=https://api.example.com
+// env.prod.token=...
+//
+// As variáveis de "env.common.*" valem em todos os ambientes (e podem ser sobrescritas por eles).
+public class Environments {
+
+    public static final String COMMON = "common";
+
+    private final Path file;
+    private final Map<String, Map<String, String>> environments = new LinkedHashMap<>();
+
+    public Environments(Path file) throws IOException {
+        this.file = file;
+        load();
+    }
+
+    public synchronized void load() throws IOException {
+        environments.clear();
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            String[] parts = key.split("\\.", 3);
+            if (parts.length == 3 && parts[0].equals("env")) {
+                environments.computeIfAbsent(parts[1], name -> new LinkedHashMap<>()).put(parts[2],
+                        properties.getProperty(key));
+            }
+        }
+    }
+
+    public synchronized List<String> names() {
+        List<String> names = new ArrayList<>(environments.keySet());
+        names.remove(COMMON);
+        return names;
+    }
+
+    // Variáveis comuns + as do ambiente; null ou "" dá só as comuns
+    public synchronized Map<String, String> variables(String name) {
+        Map<String, String> variables = new LinkedHashMap<>(environments.getOrDefault(COMMON, Map.of()));
+        if (name != null && !name.isEmpty()) {
+            Map<String, String> own = environments.get(name);
+            if (own == null) {
+                throw new IllegalArgumentException("Unknown environment " + name);
+            }
+            variables.putAll(own);
+        }
+        return variables;
+    }
+}
@@ -0,0 +1,105 @@
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Últimos N eventos de um stream. O array tem tamanho fixo e o mais antigo é sobrescrito, então um stream
+// que roda por horas ocupa sempre a mesma memória; o que saiu da janela só existe no log em disco.
+// Além do número de eventos há um teto de caracteres, então capacidade alta com eventos grandes não estoura
+// a memória. A tela não é avisada a cada evento: ela consulta version() num timer e pede só o que é novo.
+public class EventRing {
+
+    // Dados maiores que isso ficam cortados na memória (o log em disco recebe o evento inteiro)
+    static final int MAX_DATA_CHARS = 16 * 1024;
+    // Soma de data de todos os eventos guardados; acima disso os mais antigos saem antes de encher o array
+    static final long MAX_RING_CHARS = 32L * 1024 * 1024;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private final Event[] events;
+    private int next;
+    private int size;
+    private long total;
+    private long chars;
+
+    public EventRing(int capacity) {
+        events = new Event[Math.max(1, capacity)];
+    }
+
+    public synchronized void add(Event event) {
+        if (size == events.length) {
+            chars -= events[next].data.length();
+        }
+        events[next] = event;
+        next = (next + 1) % events.length;
+        size = Math.min(size + 1, events.length);
+        total++;
+        chars += event.data.length();
+        while (chars > MAX_RING_CHARS && size > 1) {
+            int oldest = (next - size + events.length) % events.length;
+            chars -= events[oldest].data.length();
+            events[oldest] = null;
+            size--;
+        }
+    }
+
+    // Muda a cada evento: a tela compara com o valor da última pintura
+    public synchronized long version() {
+        return total;
+    }
+
+    public synchronized long total() {
+        return total;
+    }
+
+    public int capacity() {
+        return events.length;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Eventos de número after até upTo - 1 (contando desde o início do stream) que ainda estão no anel,
+    // do mais antigo para o mais novo
+    public synchronized List<Event> range(long after, long upTo) {
+        long from = Math.max(after, total - size);
+        long to = Math.min(upTo, total);
+        List<Event> list = new ArrayList<>((int) Math.max(0, to - from));
+        for (long n = from; n < to; n++) {
+            list.add(events[(int) Math.floorMod(next - (total - n), (long) events.length)]);
+        }
+        return list;
+    }
+
+    public static class Event {
+        final long time;
+        final String type;
+        final String id;
+        final String data;
+        final long length; // tamanho original de data
+
+        public Event(String type, String id, String data) {
+            this.time = System.currentTimeMillis();
+            this.type = type;
+            this.id = id;
+            this.length = data.length();
+            this.data = data.length() > MAX_DATA_CHARS ? data.substring(0, MAX_DATA_CHARS) : data;
+        }
+
+        @Override
+        public String toString() {
+            String clock = LocalTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).format(TIME);
+            StringBuilder sb = new StringBuilder(clock).append(' ').append(type);
+            if (id != null) {
+                sb.append(" #").append(id);
+            }
+            sb.append("  ").append(data);
+            if (length > data.length()) {
+                sb.append(" ... (").append(TransferListener.humanBytes(length)).append(')');
+            }
+            return sb.toString();
+        }
+    }
+}
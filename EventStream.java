@@ -0,0 +1,367 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+// Stream de eventos aberto: SSE (text/event-stream, ou qualquer resposta lida linha a linha) ou WebSocket.
+// O controle de fluxo é explícito: pedimos BATCH linhas/mensagens e só pedimos mais depois de guardar
+// metade delas no anel (e no log). Pausado, nada é pedido; o buffer do HttpClient enche e o TCP segura o
+// servidor, sem acumular eventos na memória.
+public class EventStream implements AutoCloseable {
+
+    static final int BATCH = 64;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private final EventRing ring;
+    private final Writer log;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+    private volatile Flow.Subscription subscription;
+    private volatile WebSocket webSocket;
+    private volatile CompletableFuture<?> exchange;
+    private volatile String state = "Connecting";
+    private volatile boolean paused;
+    private volatile boolean closed;
+    private long outstanding; // pedidos ainda não entregues
+    private long lastFlush = System.currentTimeMillis();
+
+    private EventStream(EventRing ring, Path logFile) throws IOException {
+        this.ring = ring;
+        this.log = logFile == null ? null : Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public static boolean isWebSocket(String url) {
+        String lower = url.strip().toLowerCase(Locale.ROOT);
+        return lower.startsWith("ws://") || lower.startsWith("wss://");
+    }
+
+    // Lê a resposta linha a linha; com Content-Type text/event-stream as linhas viram eventos SSE,
+    // senão cada linha é um evento (NDJSON, logs em streaming...)
+    public static EventStream sse(HttpClient client, HttpRequest request, EventRing ring, Path logFile)
+            throws IOException {
+        EventStream stream = new EventStream(ring, logFile);
+        stream.exchange = client.sendAsync(request, info -> {
+            String contentType = info.headers().firstValue("Content-Type").orElse("");
+            stream.state = "HTTP " + info.statusCode();
+            stream.emit("open", null, "HTTP " + info.statusCode() + " " + contentType);
+            boolean eventStream = contentType.toLowerCase(Locale.ROOT).startsWith("text/event-stream");
+            LineParser parser = stream.new LineParser(eventStream);
+            return HttpResponse.BodySubscribers.fromLineSubscriber(parser, ignored -> null,
+                    ResponseBody.charsetOf(contentType), null);
+        }).whenComplete((response, error) -> stream.finish(error));
+        return stream;
+    }
+
+    public static EventStream webSocket(HttpClient client, URI uri, List<String[]> headers, Duration timeout,
+            EventRing ring, Path logFile) throws IOException {
+        EventStream stream = new EventStream(ring, logFile);
+        WebSocket.Builder builder = client.newWebSocketBuilder();
+        if (timeout != null) {
+            builder.connectTimeout(timeout);
+        }
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase("Sec-WebSocket-Protocol")) {
+                String[] protocols = header[1].split("\\s*,\\s*");
+                builder.subprotocols(protocols[0], List.of(protocols).subList(1, protocols.length)
+                        .toArray(String[]::new));
+            } else {
+                builder.header(header[0], header[1]); // IllegalArgumentException para headers do handshake
+            }
+        }
+        stream.exchange = builder.buildAsync(uri, stream.new Listener()).whenComplete((ws, error) -> {
+            if (error != null) {
+                stream.finish(error);
+            }
+        });
+        return stream;
+    }
+
+    public EventRing ring() {
+        return ring;
+    }
+
+    public String state() {
+        return paused && !closed ? "Paused" : state;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public CompletableFuture<Void> done() {
+        return done;
+    }
+
+    public boolean canSend() {
+        return webSocket != null && !closed;
+    }
+
+    public CompletableFuture<?> send(String text) {
+        WebSocket ws = webSocket;
+        if (ws == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Not a WebSocket"));
+        }
+        return ws.sendText(text, true).thenRun(() -> emit("sent", null, text));
+    }
+
+    // Para de pedir eventos; o que já foi pedido ainda chega (no máximo BATCH)
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+        replenish();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Flow.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "").whenComplete((w, e) -> ws.abort());
+        }
+        CompletableFuture<?> pending = exchange;
+        if (pending != null) {
+            pending.cancel(true);
+        }
+        finish(null);
+    }
+
+    private synchronized void emit(String type, String id, String data) {
+        if (done.isDone()) {
+            return; // o que ainda estava a caminho depois do fechamento
+        }
+        if (log != null) {
+            try {
+                log.write("{\"time\":\"" + Instant.now() + "\",\"type\":\"" + type + "\""
+                        + (id != null ? ",\"id\":" + JsonPrettyPrinter.quote(id) : "") + ",\"data\":"
+                        + JsonPrettyPrinter.quote(data) + "}\n");
+                long now = System.currentTimeMillis();
+                if (now - lastFlush >= FLUSH_INTERVAL_MS) {
+                    log.flush();
+                    lastFlush = now;
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // o disco falhou, o stream continua só na memória
+            }
+        }
+        ring.add(new EventRing.Event(type, id, data));
+    }
+
+    // Uma linha ou mensagem foi entregue
+    private void consumed() {
+        synchronized (this) {
+            outstanding--;
+        }
+        replenish();
+    }
+
+    // Completa a demanda até BATCH quando ela cai pela metade (menos chamadas a request)
+    private void replenish() {
+        long n;
+        Flow.Subscription s = subscription;
+        WebSocket ws = webSocket;
+        synchronized (this) {
+            if (paused || closed || outstanding > BATCH / 2 || (s == null && ws == null)) {
+                return;
+            }
+            n = BATCH - outstanding;
+            outstanding = BATCH;
+        }
+        if (s != null) {
+            s.request(n);
+        } else if (ws != null) {
+            ws.request(n);
+        }
+    }
+
+    private void finish(Throwable error) {
+        synchronized (this) {
+            if (done.isDone()) {
+                return;
+            }
+            if (error != null && !closed) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                state = "Failed";
+                emit("error", null, cause.getClass().getSimpleName() + (cause.getMessage() != null ? ": "
+                        + cause.getMessage() : ""));
+            } else {
+                state = "Closed";
+                emit("closed", null, closed ? "closed by client" : "end of stream");
+            }
+            if (log != null) {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            closed = true;
+        }
+        done.complete(null);
+    }
+
+    // Campos do SSE (event, data, id); linha vazia despacha o evento, ':' é comentário
+    private class LineParser implements Flow.Subscriber<String> {
+        private final boolean eventStream;
+        private final StringBuilder data = new StringBuilder();
+        private String type;
+        private String lastId;
+
+        LineParser(boolean eventStream) {
+            this.eventStream = eventStream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            state = "Streaming";
+            if (closed) {
+                s.cancel();
+            } else {
+                replenish();
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!eventStream) {
+                if (!line.isEmpty()) {
+                    emit("line", null, line);
+                }
+            } else if (line.isEmpty()) {
+                if (!data.isEmpty()) {
+                    data.setLength(data.length() - 1);
+                    emit(type != null ? type : "message", lastId, data.toString());
+                }
+                data.setLength(0);
+                type = null;
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(colon + (line.startsWith(" ", colon + 1) ? 2 : 1));
+                switch (field) {
+                    case "data" -> data.append(value).append('\n');
+                    case "event" -> type = value;
+                    case "id" -> lastId = value;
+                    default -> {
+                        // retry e campos desconhecidos: não reconectamos sozinhos
+                    }
+                }
+            }
+            consumed();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // o sendAsync falha junto e chama finish
+        }
+
+        @Override
+        public void onComplete() {
+            if (!data.isEmpty()) { // último evento sem a linha vazia final
+                data.setLength(data.length() - 1);
+                emit(type != null ? type : "message", lastId, data.toString());
+            }
+        }
+    }
+
+    private class Listener implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+        private long binaryLength;
+        private ByteBuffer binaryPreview;
+
+        @Override
+        public void onOpen(WebSocket ws) {
+            webSocket = ws;
+            state = "Streaming";
+            emit("open", null, "WebSocket connected" + (ws.getSubprotocol().isEmpty() ? ""
+                    : " (" + ws.getSubprotocol() + ")"));
+            if (closed) {
+                ws.abort();
+            } else {
+                replenish();
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence part, boolean last) {
+            text.append(part);
+            if (last) {
+                emit("text", null, text.toString());
+                text.setLength(0);
+            }
+            consumed();
+            return null;
+        }
+
+        // Binário aparece como tamanho + os primeiros bytes em hexa
+        @Override
+        public CompletionStage<?> onBinary(WebSocket ws, ByteBuffer part, boolean last) {
+            if (binaryPreview == null) {
+                binaryPreview = ByteBuffer.allocate(32);
+            }
+            binaryLength += part.remaining();
+            while (binaryPreview.hasRemaining() && part.hasRemaining()) {
+                binaryPreview.put(part.get());
+            }
+            if (last) {
+                byte[] preview = new byte[binaryPreview.position()];
+                binaryPreview.flip().get(preview);
+                emit("binary", null, binaryLength + " bytes: " + HexFormat.ofDelimiter(" ").formatHex(preview)
+                        + (binaryLength > preview.length ? " ..." : ""));
+                binaryLength = 0;
+                binaryPreview = null;
+            }
+            consumed();
+            return null;
+        }
+
+        // O HttpClient responde o ping sozinho, mas o ping gasta uma unidade da demanda
+        @Override
+        public CompletionStage<?> onPing(WebSocket ws, ByteBuffer message) {
+            consumed();
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket ws, ByteBuffer message) {
+            consumed();
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            emit("close", null, statusCode + (reason.isEmpty() ? "" : " " + reason));
+            finish(null);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            finish(error);
+        }
+    }
+}
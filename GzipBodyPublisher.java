@@ -0,0 +1,172 @@
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Compacta em gzip o corpo de outro BodyPublisher enquanto ele é enviado, sem montar o corpo inteiro.
+// Cada pedaço da origem vira exatamente um pedaço de saída (SYNC_FLUSH), então a demanda do HttpClient
+// passa direto para a origem; só o trailer do gzip espera por um request a mais.
+public class GzipBodyPublisher implements BodyPublisher {
+
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final BodyPublisher delegate;
+    private final int level;
+    private volatile long bytesIn = -1;
+    private volatile long bytesOut = -1;
+
+    public GzipBodyPublisher(BodyPublisher delegate, int level) {
+        this.delegate = delegate;
+        this.level = level;
+    }
+
+    // O tamanho compactado só é conhecido no fim: vai como chunked
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    // Bytes lidos da origem no último envio, -1 até terminar
+    public long bytesIn() {
+        return bytesIn;
+    }
+
+    // Bytes compactados enviados no último envio, -1 até terminar
+    public long bytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        delegate.subscribe(new Compressor(subscriber));
+    }
+
+    private class Compressor implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> downstream;
+        private final Deflater deflater = new Deflater(level, true);
+        private final CRC32 crc = new CRC32();
+        private Flow.Subscription upstream;
+        private long demand;
+        private boolean upstreamDone;
+        private boolean finished;
+        private boolean headerSent;
+        private long in;
+        private long out;
+
+        Compressor(Flow.Subscriber<? super ByteBuffer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            boolean forward;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                forward = !upstreamDone;
+                if (upstreamDone && demand > 0) {
+                    finish();
+                }
+            }
+            if (forward) {
+                upstream.request(n);
+            }
+        }
+
+        // A memória nativa do Deflater é liberada já aqui, sem esperar o GC
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                finished = true;
+                deflater.end();
+            }
+            upstream.cancel();
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            byte[] chunk;
+            synchronized (this) {
+                if (finished) {
+                    return; // cancelado enquanto o pedaço estava a caminho
+                }
+                int length = item.remaining();
+                in += length;
+                crc.update(item.duplicate());
+                deflater.setInput(item);
+                chunk = deflate(Deflater.SYNC_FLUSH, Math.max(64, length / 2));
+                demand--;
+            }
+            downstream.onNext(ByteBuffer.wrap(chunk));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            synchronized (this) {
+                finished = true;
+                deflater.end();
+            }
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            upstreamDone = true;
+            if (demand > 0) {
+                finish();
+            }
+        }
+
+        // Resto do deflate + CRC32 e tamanho original (little endian)
+        private void finish() {
+            finished = true;
+            deflater.finish();
+            byte[] chunk = deflate(Deflater.NO_FLUSH, 64);
+            deflater.end();
+            int length = chunk.length;
+            chunk = Arrays.copyOf(chunk, length + 8);
+            long value = crc.getValue();
+            for (int i = 0; i < 4; i++) {
+                chunk[length + i] = (byte) (value >>> (8 * i));
+                chunk[length + 4 + i] = (byte) (in >>> (8 * i));
+            }
+            out += 8;
+            demand--;
+            bytesIn = in;
+            bytesOut = out;
+            downstream.onNext(ByteBuffer.wrap(chunk));
+            downstream.onComplete();
+        }
+
+        private byte[] deflate(int flush, int estimate) {
+            byte[] buffer = new byte[estimate + (headerSent ? 0 : HEADER.length)];
+            int count = 0;
+            if (!headerSent) {
+                System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+                count = HEADER.length;
+                headerSent = true;
+            }
+            while (true) {
+                count += deflater.deflate(buffer, count, buffer.length - count, flush);
+                if (count < buffer.length && (flush == Deflater.SYNC_FLUSH || deflater.finished())) {
+                    break;
+                }
+                if (count == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            out += count;
+            return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HistoryEntry {
+    String method;
+    String url;
+    String headers;
+    String bodyType;
+    String rawBody;
+    List<HttpClientService.FormField> fields;
+
+    public HistoryEntry(String method, String url, String headers, String bodyType, String rawBody,
+            List<HttpClientService.FormField> fields) {
+        this.method = method;
+        this.url = url;
+        this.headers = headers;
+        this.bodyType = bodyType;
+        this.rawBody = rawBody;
+        this.fields = fields;
+    }
+
+    // Uma linha por registro, campos separados por TAB com \\, \t, \n e \r escapados
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        appendField(sb, method);
+        appendField(sb, url);
+        appendField(sb, headers);
+        appendField(sb, bodyType);
+        appendField(sb, rawBody);
+        sb.append(fields.size());
+        for (HttpClientService.FormField f : fields) {
+            sb.append('\t');
+            appendField(sb, f.name);
+            appendField(sb, f.value);
+            sb.append(f.isFile);
+        }
+        return sb.toString();
+    }
+
+    // Chave de deduplicação: headers ordenados e sem espaços nas pontas, demais campos como foram enviados
+    public String normalized() {
+        List<String> headerLines = new ArrayList<>();
+        for (String line : headers.split("\n")) {
+            if (!line.isBlank()) {
+                headerLines.add(line.strip());
+            }
+        }
+        headerLines.sort(null);
+        return new HistoryEntry(method, url.strip(), String.join("\n", headerLines), bodyType, rawBody, fields)
+                .encode();
+    }
+
+    public static long hash(String normalized) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static HistoryEntry decode(String line) {
+        List<String> parts = split(line, Integer.MAX_VALUE);
+        if (parts.size() < 6) {
+            throw new IllegalArgumentException("Invalid history record: " + line);
+        }
+
+        List<HttpClientService.FormField> fields = new ArrayList<>();
+        int count = Integer.parseInt(parts.get(5));
+        for (int i = 0; i < count; i++) {
+            int base = 6 + i * 3;
+            fields.add(new HttpClientService.FormField(parts.get(base), parts.get(base + 1),
+                    Boolean.parseBoolean(parts.get(base + 2))));
+        }
+        return new HistoryEntry(parts.get(0), parts.get(1), parts.get(2), parts.get(3), parts.get(4), fields);
+    }
+
+    // Lê no máximo limit campos, o suficiente para montar um resumo sem decodificar o corpo
+    static List<String> split(String line, int limit) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < line.length() && parts.size() < limit; i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                switch (next) {
+                    case 't' -> current.append('\t');
+                    case 'n' -> current.append('\n');
+                    case 'r' -> current.append('\r');
+                    default -> current.append(next);
+                }
+            } else if (c == '\t') {
+                parts.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (parts.size() < limit) {
+            parts.add(current.toString());
+        }
+        return parts;
+    }
+
+    // Formato antigo do history.txt: method@@url@@headers@@bodyType@@body@@name,value,isFile;...
+    public static HistoryEntry decodeLegacy(String line) {
+        String[] parts = line.split("@@");
+        if (parts.length < 5) {
+            return null;
+        }
+        List<HttpClientService.FormField> fields = new ArrayList<>();
+        if (parts.length == 6) {
+            for (String f : parts[5].split(";")) {
+                if (!f.isBlank()) {
+                    String[] fp = f.split(",", 3);
+                    if (fp.length == 3) {
+                        fields.add(new HttpClientService.FormField(fp[0], fp[1].replace("\\n", "\n"),
+                                Boolean.parseBoolean(fp[2])));
+                    }
+                }
+            }
+        }
+        return new HistoryEntry(parts[0], parts[1], parts[2].replace("\\n", "\n").trim(), parts[3],
+                parts[4].replace("\\n", "\n").trim(), fields);
+    }
+
+    private static void appendField(StringBuilder sb, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '\t' -> sb.append("\\t");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    default -> sb.append(c);
+                }
+            }
+        }
+        sb.append('\t');
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+
+// Carrega do disco só as entradas que a JList pede para desenhar, com cache LRU dos resumos
+public class HistoryListModel extends AbstractListModel<HistoryStore.Summary> {
+
+    private static final int CACHE_SIZE = 512;
+
+    private final HistoryStore store;
+    private final Map<Integer, HistoryStore.Summary> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, HistoryStore.Summary> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private int size;
+    private int[] filter;
+    private long generation; // das posições em cache e em filter
+
+    public HistoryListModel(HistoryStore store) {
+        this.store = store;
+        this.size = store.size();
+        this.generation = store.generation();
+        // Até este remap chegar, as leituras usam a geração antiga e o store traduz as posições
+        store.addCompactionListener((remap, compacted) -> SwingUtilities.invokeLater(() -> {
+            if (filter != null) {
+                filter = Arrays.stream(filter).map(p -> p < remap.length ? remap[p] : p).filter(p -> p >= 0)
+                        .toArray();
+            }
+            generation = compacted;
+            reload();
+        }));
+    }
+
+    @Override
+    public int getSize() {
+        return filter == null ? size : filter.length;
+    }
+
+    @Override
+    public HistoryStore.Summary getElementAt(int index) {
+        return cache.computeIfAbsent(filter == null ? index : filter[index], position -> {
+            try {
+                return store.readSummary(position, generation);
+            } catch (IOException e) {
+                return new HistoryStore.Summary(position, generation, "?", "(unreadable entry)");
+            }
+        });
+    }
+
+    // Resultado da busca por texto; null volta a mostrar todo o histórico
+    public void setFilter(int[] positions) {
+        int previous = getSize();
+        filter = positions;
+        if (previous > 0) {
+            fireIntervalRemoved(this, 0, previous - 1);
+        }
+        if (getSize() > 0) {
+            fireIntervalAdded(this, 0, getSize() - 1);
+        }
+    }
+
+    public void entryAppended(int position) {
+        int previous = size;
+        size = store.size();
+        if (filter != null) {
+            cache.remove(position);
+        } else if (size > previous) {
+            fireIntervalAdded(this, previous, size - 1);
+        } else {
+            entryChanged(position);
+        }
+    }
+
+    public void entryChanged(int position) {
+        cache.remove(position);
+        if (filter == null) {
+            fireContentsChanged(this, position, position);
+        } else if (filter.length > 0) {
+            fireContentsChanged(this, 0, filter.length - 1);
+        }
+    }
+
+    public void reload() {
+        int previous = getSize();
+        size = store.size();
+        cache.clear();
+        if (getSize() < previous) {
+            fireIntervalRemoved(this, getSize(), previous - 1);
+        }
+        if (getSize() > 0) {
+            fireContentsChanged(this, 0, getSize() - 1);
+        }
+    }
+}
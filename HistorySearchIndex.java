@@ -0,0 +1,327 @@
+import java.io.*;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Índice invertido token -> posições do histórico, com peso por campo (host e path pesam mais que o corpo)
+public class HistorySearchIndex {
+
+    private static final String MAGIC = "HSRCH001";
+    private static final int BODY_CHARS = 64 * 1024;
+    private static final int MAX_TOKEN = 64;
+    private static final int HOST_WEIGHT = 5;
+    private static final int PATH_WEIGHT = 4;
+    private static final int QUERY_WEIGHT = 2;
+    private static final int HEADER_WEIGHT = 2;
+    private static final int BODY_WEIGHT = 1;
+    private static final int EXACT_BOOST = 2;
+
+    private final HistoryStore store;
+    private final Path file;
+    private final TreeMap<String, Postings> tokens = new TreeMap<>();
+    private final BitSet removed = new BitSet();
+    // Remoções de uma geração do store que o remap ainda não trouxe para cá
+    private final Map<Long, BitSet> pendingRemovals = new HashMap<>();
+    private long generation;
+    private int indexedCount;
+    private boolean ready;
+    private boolean stale;
+    private boolean dirty;
+
+    public HistorySearchIndex(HistoryStore store, Path file) {
+        this.store = store;
+        this.file = file;
+        this.generation = store.generation();
+        store.addCompactionListener(this::remap);
+    }
+
+    // Carrega o índice salvo e indexa apenas o que foi gravado no histórico depois dele
+    public void load() throws IOException {
+        synchronized (this) {
+            if (Files.exists(file)) {
+                try {
+                    read();
+                } catch (IOException | RuntimeException e) {
+                    tokens.clear();
+                    removed.clear();
+                    indexedCount = 0;
+                }
+            }
+            // Compactação antes do carregamento invalida as posições salvas
+            if (stale || indexedCount > store.size()) {
+                tokens.clear();
+                removed.clear();
+                indexedCount = 0;
+            }
+            ready = true;
+        }
+        catchUp();
+    }
+
+    public synchronized void add(int position, HistoryEntry entry) throws IOException {
+        if (!ready || position < indexedCount) {
+            return;
+        }
+        if (position == indexedCount) {
+            index(position, entry);
+            indexedCount++;
+        } else {
+            catchUp();
+        }
+    }
+
+    // positions na geração do store (HistoryStore.generation), que pode estar à frente da deste índice
+    public synchronized void remove(int[] positions, long generation) {
+        BitSet target = generation == this.generation ? removed
+                : pendingRemovals.computeIfAbsent(generation, g -> new BitSet());
+        for (int position : positions) {
+            if (position >= 0) {
+                target.set(position);
+            }
+        }
+        dirty = true;
+    }
+
+    // Todos os termos precisam casar (o último por prefixo, para busca enquanto digita).
+    // Resultado ordenado por relevância e, no empate, pelo mais recente.
+    public synchronized int[] search(String query) {
+        List<String> terms = new ArrayList<>();
+        tokenize(query, terms::add);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        Map<Integer, Double> scores = null;
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            Map<String, Postings> matches = t == terms.size() - 1
+                    ? tokens.subMap(term, true, term + Character.MAX_VALUE, false)
+                    : tokens.subMap(term, true, term, true);
+            Map<Integer, Double> termScores = new HashMap<>();
+            for (Map.Entry<String, Postings> match : matches.entrySet()) {
+                Postings postings = match.getValue();
+                // Token completo vale mais que um que só começa com o termo
+                double idf = Math.log(1 + (double) indexedCount / postings.size)
+                        * (match.getKey().equals(term) ? EXACT_BOOST : 1);
+                for (int i = 0; i < postings.size; i++) {
+                    if (scores == null || scores.containsKey(postings.positions[i])) {
+                        termScores.merge(postings.positions[i], postings.weights[i] * idf, Double::sum);
+                    }
+                }
+            }
+            if (scores != null) {
+                Map<Integer, Double> previous = scores;
+                termScores.replaceAll((position, score) -> score + previous.get(position));
+            }
+            scores = termScores;
+        }
+        Map<Integer, Double> ranked = scores;
+        return ranked.keySet().stream()
+                .filter(position -> !removed.get(position))
+                .sorted(Comparator.comparingDouble((Integer position) -> ranked.get(position)).reversed()
+                        .thenComparing(Comparator.reverseOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    public void save() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(MAGIC);
+                out.writeInt(indexedCount);
+                long[] removedWords = removed.toLongArray();
+                out.writeInt(removedWords.length);
+                for (long word : removedWords) {
+                    out.writeLong(word);
+                }
+                out.writeInt(tokens.size());
+                for (Map.Entry<String, Postings> token : tokens.entrySet()) {
+                    Postings postings = token.getValue();
+                    out.writeUTF(token.getKey());
+                    out.writeInt(postings.size);
+                    int previous = 0;
+                    for (int i = 0; i < postings.size; i++) {
+                        writeVarInt(out, postings.positions[i] - previous);
+                        previous = postings.positions[i];
+                        writeVarInt(out, postings.weights[i]);
+                    }
+                }
+            }
+            dirty = false;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!MAGIC.equals(in.readUTF())) {
+                throw new IOException("Unknown search index format");
+            }
+            indexedCount = in.readInt();
+            long[] removedWords = new long[in.readInt()];
+            for (int i = 0; i < removedWords.length; i++) {
+                removedWords[i] = in.readLong();
+            }
+            removed.or(BitSet.valueOf(removedWords));
+            int count = in.readInt();
+            for (int t = 0; t < count; t++) {
+                String token = in.readUTF();
+                int size = in.readInt();
+                Postings postings = new Postings(size);
+                int position = 0;
+                for (int i = 0; i < size; i++) {
+                    position += readVarInt(in);
+                    postings.add(position, readVarInt(in));
+                }
+                tokens.put(token, postings);
+            }
+        }
+    }
+
+    private synchronized void catchUp() throws IOException {
+        int size = store.size();
+        for (; indexedCount < size; indexedCount++) {
+            if (store.isDeleted(indexedCount)) {
+                removed.set(indexedCount);
+            } else {
+                index(indexedCount, store.read(indexedCount));
+            }
+            dirty = true;
+        }
+    }
+
+    private synchronized void remap(int[] remap, long compacted) {
+        generation = compacted;
+        BitSet pending = pendingRemovals.remove(compacted);
+        if (!ready) {
+            stale = true;
+            return;
+        }
+        for (Iterator<Postings> it = tokens.values().iterator(); it.hasNext();) {
+            Postings postings = it.next();
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int position = postings.positions[i];
+                int target = position < remap.length ? remap[position] : -1;
+                if (target >= 0 && !removed.get(position)) {
+                    postings.positions[kept] = target;
+                    postings.weights[kept] = postings.weights[i];
+                    kept++;
+                }
+            }
+            postings.size = kept;
+            if (kept == 0) {
+                it.remove();
+            }
+        }
+        removed.clear();
+        indexedCount = Math.min(indexedCount, remap.length);
+        while (indexedCount > 0 && remap[indexedCount - 1] < 0) {
+            indexedCount--;
+        }
+        indexedCount = indexedCount == 0 ? 0 : remap[indexedCount - 1] + 1;
+        if (pending != null) {
+            removed.or(pending);
+        }
+        dirty = true;
+    }
+
+    private void index(int position, HistoryEntry entry) {
+        tokenize(entry.method, token -> post(token, position, BODY_WEIGHT));
+        try {
+            URI uri = URI.create(entry.url.strip());
+            if (uri.getHost() != null) {
+                tokenize(uri.getHost(), token -> post(token, position, HOST_WEIGHT));
+                post(uri.getHost().toLowerCase(Locale.ROOT), position, HOST_WEIGHT);
+            }
+            if (uri.getRawPath() != null) {
+                tokenize(uri.getRawPath(), token -> post(token, position, PATH_WEIGHT));
+            }
+            if (uri.getRawQuery() != null) {
+                tokenize(uri.getRawQuery(), token -> post(token, position, QUERY_WEIGHT));
+            }
+        } catch (IllegalArgumentException e) {
+            tokenize(entry.url, token -> post(token, position, PATH_WEIGHT));
+        }
+        tokenize(entry.headers, token -> post(token, position, HEADER_WEIGHT));
+        String body = entry.rawBody.length() > BODY_CHARS ? entry.rawBody.substring(0, BODY_CHARS) : entry.rawBody;
+        tokenize(body, token -> post(token, position, BODY_WEIGHT));
+        for (HttpClientService.FormField field : entry.fields) {
+            tokenize(field.name, token -> post(token, position, BODY_WEIGHT));
+            tokenize(field.value, token -> post(token, position, BODY_WEIGHT));
+        }
+        dirty = true;
+    }
+
+    private void post(String token, int position, int weight) {
+        tokens.computeIfAbsent(token, t -> new Postings(4)).add(position, weight);
+    }
+
+    static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start <= MAX_TOKEN) {
+                    sink.accept(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    // Posições em ordem crescente; o mesmo token repetido numa entrada só soma peso
+    private static class Postings {
+        int[] positions;
+        int[] weights;
+        int size;
+
+        Postings(int capacity) {
+            positions = new int[Math.max(capacity, 1)];
+            weights = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int position, int weight) {
+            if (size > 0 && positions[size - 1] == position) {
+                weights[size - 1] = Math.min(weights[size - 1] + weight, 255);
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            positions[size] = position;
+            weights[size] = weight;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,1179 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Registros (um por linha) em segmentos dentro de pastas por mês: history/2026-10/segment-000012.log.
+// Só o último segmento recebe appends; ao passar de SEGMENT_BYTES ou virar o dia ele é selado e
+// comprimido em blocos Deflate independentes (.z), que continuam legíveis por posição sem descomprimir o
+// resto. O índice tem um slot de tamanho fixo por registro: location(8) hash(8) lastUsed(8) count(4)
+// flags(4), com location = segmento << 40 | offset no conteúdo descomprimido.
+// Quem grava não espera o disco: append entra numa fila e uma única thread grava em lotes, sela,
+// comprime e compacta; o fsync acontece no máximo uma vez por segundo.
+public class HistoryStore implements Closeable {
+
+    private static final byte[] MAGIC = "HIDX0003".getBytes(StandardCharsets.US_ASCII);
+    // Índice do history.log único: os offsets continuam valendo como segmento 0
+    private static final byte[] MAGIC_SINGLE_LOG = "HIDX0002".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER = MAGIC.length;
+    private static final int SLOT = 32;
+    private static final int HASH = 8;
+    private static final int LAST_USED = 16;
+    private static final int COUNT = 24;
+    private static final int FLAGS = 28;
+    private static final int DELETED = 1;
+    private static final int SUMMARY_BYTES = 2048;
+    private static final int SCAN_CHUNK = 4096;
+    private static final int SEGMENT_SHIFT = 40;
+    private static final long OFFSET_MASK = (1L << SEGMENT_SHIFT) - 1;
+    static final long SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final int MAX_BATCH = 512;
+    private static final long SYNC_DELAY_MS = 1000;
+    private static final int KEPT_REMAPS = 4;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.(log|z)(\\.tmp|\\.compact)?");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final Path directory;
+    private final Path indexFile;
+    private FileChannel index;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active; // null até o próximo append depois de selar
+    private final Map<Long, Integer> positionsByHash = new HashMap<>();
+    private final CompletableFuture<Void> hashesReady;
+    private final List<CompactionListener> compactionListeners = new CopyOnWriteArrayList<>();
+    // Cada compactação renumera as posições e incrementa generation; remaps guarda as últimas renumerações
+    // para que uma posição lida antes (seleção da tela, por exemplo) ainda aponte para a mesma entrada
+    private long generation;
+    private final Map<Long, int[]> remaps = new HashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "history-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private boolean syncScheduled; // só na thread de escrita
+    private List<Integer> deletedDuringRewrite; // não null enquanto a compactação escreve fora do lock
+
+    // legacyLog: o history.log de um arquivo só; legacyFile: o history.txt ainda mais antigo
+    public HistoryStore(Path directory, Path indexFile, Path legacyLog, Path legacyFile) throws IOException {
+        this.directory = directory;
+        this.indexFile = indexFile;
+        if (!Files.isDirectory(directory)) {
+            if (legacyLog != null && Files.exists(legacyLog)) {
+                Path folder = directory.resolve(month(Files.getLastModifiedTime(legacyLog).toMillis()));
+                Files.createDirectories(folder);
+                Files.move(legacyLog, folder.resolve(segmentName(0, false)));
+            } else if (legacyFile != null && Files.exists(legacyFile)) {
+                importLegacy(legacyFile);
+            }
+        }
+        Files.createDirectories(directory);
+        loadSegments();
+        index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recoverIndex();
+        // Selados que não chegaram a ser comprimidos (o log antigo, ou uma queda no meio)
+        for (Segment segment : segments.values()) {
+            if (!segment.packed && segment != active) {
+                later(() -> seal(segment));
+            }
+        }
+        // O mapa de hashes é montado em segundo plano para não atrasar a abertura da janela
+        hashesReady = CompletableFuture.runAsync(() -> {
+            try {
+                loadHashes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public synchronized int size() {
+        try {
+            return (int) ((index.size() - HEADER) / SLOT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Entra na fila e volta na hora; o future completa com a posição quando o lote for gravado.
+    // Registro repetido não é gravado de novo: incrementa o contador e a data de uso do existente.
+    public CompletableFuture<Integer> append(HistoryEntry entry) {
+        Pending request = new Pending(entry);
+        pending.add(request);
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                request.future.completeExceptionally(new IOException("History is closed"));
+            }
+        }
+        return request.future;
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        List<Pending> batch = new ArrayList<>();
+        Pending request;
+        while ((request = pending.poll()) != null) {
+            batch.add(request);
+            if (batch.size() == MAX_BATCH) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        int[] positions;
+        try {
+            hashesReady.join();
+            positions = writeBatch(batch);
+        } catch (IOException | RuntimeException e) {
+            batch.forEach(request -> request.future.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(positions[i]);
+        }
+        scheduleSync();
+    }
+
+    // Um write no segmento e um no índice para o lote inteiro
+    private synchronized int[] writeBatch(List<Pending> batch) throws IOException {
+        if (active == null || active.size >= SEGMENT_BYTES || !LocalDate.now().equals(active.day)) {
+            roll();
+        }
+        int first = size();
+        int next = first;
+        long offset = active.size;
+        long now = System.currentTimeMillis();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        ByteBuffer slots = ByteBuffer.allocate(batch.size() * SLOT);
+        Map<Long, String> written = new HashMap<>(); // registros deste lote, ainda fora do disco
+        int[] positions = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            ClientEvents.HistoryWrite event = ClientEvents.enabled() ? new ClientEvents.HistoryWrite() : null;
+            if (event != null) {
+                event.begin();
+            }
+            HistoryEntry entry = batch.get(i).entry;
+            String normalized = entry.normalized();
+            long hash = HistoryEntry.hash(normalized);
+            Integer existing = positionsByHash.get(hash);
+            if (existing != null && normalized.equals(existing >= first ? written.get(hash)
+                    : read(existing).normalized())) {
+                if (existing >= first) {
+                    int slot = (existing - first) * SLOT;
+                    slots.putLong(slot + LAST_USED, now).putInt(slot + COUNT, slots.getInt(slot + COUNT) + 1);
+                } else {
+                    touch(existing, 1);
+                }
+                positions[i] = commit(event, existing, true);
+                continue;
+            }
+            byte[] record = (entry.encode() + "\n").getBytes(StandardCharsets.UTF_8);
+            records.write(record);
+            slots.put(slot(location(active.number, offset), hash, now, 1, 0));
+            offset += record.length;
+            positionsByHash.put(hash, next);
+            written.put(hash, normalized);
+            positions[i] = commit(event, next++, false);
+        }
+        // Primeiro o registro, depois o slot: uma queda no meio deixa só uma cauda sem índice
+        writeFully(active.channel, ByteBuffer.wrap(records.toByteArray()), active.size);
+        active.size = offset;
+        writeFully(index, slots.flip(), slotPosition(first));
+        return positions;
+    }
+
+    private static int commit(ClientEvents.HistoryWrite event, int position, boolean duplicate) {
+        if (event != null) {
+            event.position = position;
+            event.duplicate = duplicate;
+            event.commit();
+        }
+        return position;
+    }
+
+    // Agrupa os fsyncs: no máximo um por SYNC_DELAY_MS, na thread de escrita
+    private void scheduleSync() {
+        if (!syncScheduled && !writer.isShutdown()) {
+            syncScheduled = true;
+            writer.schedule(() -> {
+                syncScheduled = false;
+                background(this::sync);
+            }, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Só a thread de escrita troca os canais, então os que foram pegos sob o lock continuam abertos durante
+    // o fsync, que fica fora do lock: readSummary (chamado na tela) não espera o disco
+    private void sync() throws IOException {
+        FileChannel segment;
+        FileChannel indexChannel;
+        synchronized (this) {
+            segment = active != null ? active.channel : null;
+            indexChannel = index;
+        }
+        if (segment != null) {
+            segment.force(false);
+        }
+        indexChannel.force(false);
+    }
+
+    // Fecha o segmento ativo (a compressão vai para o fim da fila) e abre outro na pasta do mês
+    private void roll() throws IOException {
+        Segment previous = active;
+        active = null;
+        if (previous != null && previous.size == 0) {
+            segments.remove(previous.number);
+            previous.close();
+            Files.deleteIfExists(previous.file);
+        } else if (previous != null) {
+            later(() -> seal(previous)); // o fsync do anterior fica para seal, fora do lock
+        }
+        LocalDate today = LocalDate.now();
+        Path folder = directory.resolve(today.format(MONTH));
+        Files.createDirectories(folder);
+        int number = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        active = Segment.plain(number, folder.resolve(segmentName(number, false)));
+        active.day = today;
+        segments.put(number, active);
+    }
+
+    // Comprime um segmento selado; leitores continuam no arquivo simples até a troca, feita sob o lock
+    private void seal(Segment plain) throws IOException {
+        synchronized (this) {
+            if (segments.get(plain.number) != plain || plain == active) {
+                return;
+            }
+        }
+        plain.channel.force(false);
+        Path temp = plain.file.resolveSibling(segmentName(plain.number, true) + ".tmp");
+        try (InputStream in = plain.open(0); SegmentWriter out = new SegmentWriter(temp, true)) {
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                record.write(b);
+                if (b == '\n') {
+                    out.add(record.toByteArray());
+                    record.reset();
+                }
+            }
+        }
+        synchronized (this) {
+            if (segments.get(plain.number) != plain) {
+                Files.deleteIfExists(temp);
+                return;
+            }
+            Path target = plain.file.resolveSibling(segmentName(plain.number, true));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            segments.put(plain.number, Segment.packed(plain.number, target));
+            plain.close();
+            deleteFile(plain.file);
+        }
+    }
+
+    public synchronized void delete(int position) throws IOException {
+        ByteBuffer slot = readSlot(position);
+        writeFully(index, ByteBuffer.allocate(Integer.BYTES).putInt(0, slot.getInt(FLAGS) | DELETED),
+                slotPosition(position) + FLAGS);
+        positionsByHash.remove(slot.getLong(HASH), position);
+        if (deletedDuringRewrite != null) {
+            deletedDuringRewrite.add(position);
+        }
+    }
+
+    // Apaga várias posições lidas na mesma geração de uma vez só, sem compactação no meio.
+    // Devolve as posições atuais (-1 para as que já não existiam).
+    public synchronized int[] delete(int[] positions, long generation) throws IOException {
+        int[] current = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            current[i] = translate(positions[i], generation);
+        }
+        for (int position : current) {
+            if (position >= 0 && position < size()) {
+                delete(position);
+            }
+        }
+        return current;
+    }
+
+    public synchronized boolean isDeleted(int position) throws IOException {
+        return (readSlot(position).getInt(FLAGS) & DELETED) != 0;
+    }
+
+    public synchronized int deletedCount() throws IOException {
+        int deleted = 0;
+        int size = size();
+        for (int start = 0; start < size; start += SCAN_CHUNK) {
+            ByteBuffer slots = readSlots(start, Math.min(SCAN_CHUNK, size - start));
+            for (int i = 0; i < slots.limit() / SLOT; i++) {
+                deleted += slots.getInt(i * SLOT + FLAGS) & DELETED;
+            }
+        }
+        return deleted;
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Posição atual de uma posição lida na geração from; -1 se a entrada foi removida por uma compactação
+    public synchronized int translate(int position, long from) throws IOException {
+        if (from > generation) {
+            throw new IllegalArgumentException("Unknown history generation " + from);
+        }
+        for (long g = from; g < generation && position >= 0; g++) {
+            int[] remap = remaps.get(g);
+            if (remap == null) {
+                throw new IOException("History was compacted several times since this entry was listed");
+            }
+            position = position < remap.length ? remap[position] : -1;
+        }
+        return position;
+    }
+
+    public synchronized HistoryEntry read(int position, long generation) throws IOException {
+        int current = translate(position, generation);
+        if (current < 0) {
+            throw new IOException("History entry was removed");
+        }
+        return read(current);
+    }
+
+    public synchronized HistoryEntry read(int position) throws IOException {
+        long location = location(position);
+        Segment segment = segment(location);
+        long start = location & OFFSET_MASK;
+        byte[] record = segment.read(start, (int) (end(position, segment) - start));
+        return HistoryEntry.decode(new String(record, 0, record.length - 1, StandardCharsets.UTF_8));
+    }
+
+    public synchronized Summary readSummary(int position) throws IOException {
+        return readSummary(position, generation);
+    }
+
+    // O resumo continua identificado por (position, generation), como foi pedido
+    public synchronized Summary readSummary(int position, long generation) throws IOException {
+        int current = translate(position, generation);
+        if (current < 0) {
+            return new Summary(position, generation, "?", "(removed entry)", 0, 0, true);
+        }
+        ByteBuffer slot = readSlot(current);
+        Segment segment = segment(slot.getLong(0));
+        long start = slot.getLong(0) & OFFSET_MASK;
+        byte[] head = segment.read(start, (int) Math.min(end(current, segment) - start, SUMMARY_BYTES));
+        List<String> parts = HistoryEntry.split(new String(head, StandardCharsets.UTF_8), 2);
+        return new Summary(position, generation, parts.get(0), parts.size() > 1 ? parts.get(1).strip() : "",
+                slot.getInt(COUNT), slot.getLong(LAST_USED), (slot.getInt(FLAGS) & DELETED) != 0);
+    }
+
+    // Percorre os segmentos em sequência (descomprimindo cada bloco uma vez), ignorando registros apagados
+    public void forEach(ObjIntConsumer<HistoryEntry> action) throws IOException {
+        int size = size();
+        InputStream in = null;
+        int streamSegment = -1;
+        long streamOffset = 0;
+        try {
+            for (int start = 0; start < size; start += SCAN_CHUNK) {
+                int count = Math.min(SCAN_CHUNK, size - start);
+                ByteBuffer slots;
+                long[] ends = new long[count];
+                synchronized (this) {
+                    slots = readSlots(start, count);
+                    for (int i = 0; i < count; i++) {
+                        long location = slots.getLong(i * SLOT);
+                        long next = i + 1 < count ? slots.getLong((i + 1) * SLOT) : -1;
+                        ends[i] = next >>> SEGMENT_SHIFT == location >>> SEGMENT_SHIFT ? next & OFFSET_MASK
+                                : end(start + i, segment(location));
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    if ((slots.getInt(i * SLOT + FLAGS) & DELETED) != 0) {
+                        continue;
+                    }
+                    long location = slots.getLong(i * SLOT);
+                    int number = (int) (location >>> SEGMENT_SHIFT);
+                    long offset = location & OFFSET_MASK;
+                    if (in == null || number != streamSegment || offset < streamOffset) {
+                        if (in != null) {
+                            in.close();
+                        }
+                        synchronized (this) {
+                            in = segment(location).open(offset);
+                        }
+                        streamSegment = number;
+                    } else {
+                        in.skipNBytes(offset - streamOffset);
+                    }
+                    byte[] record = in.readNBytes((int) (ends[i] - offset));
+                    streamOffset = ends[i];
+                    action.accept(HistoryEntry.decode(new String(record, 0, record.length - 1,
+                            StandardCharsets.UTF_8)), start + i);
+                }
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    // Reescreve só os segmentos que têm registros apagados e o índice. Roda na thread de escrita, então
+    // nenhum append acontece no meio; leitores só esperam a troca dos arquivos.
+    // Retorna o mapa posição antiga -> nova (-1 para removidos).
+    public int[] compact() throws IOException {
+        int[] result;
+        try {
+            result = writer.submit(this::rewrite).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        } catch (RejectedExecutionException e) {
+            throw new IOException("History is closed");
+        }
+        return result;
+    }
+
+    // Chamado na thread de escrita logo depois da troca, na ordem das compactações
+    public void addCompactionListener(CompactionListener listener) {
+        compactionListeners.add(listener);
+    }
+
+    private int[] rewrite() throws IOException {
+        hashesReady.join();
+        int size;
+        ByteBuffer slots;
+        TreeMap<Integer, int[]> ranges = new TreeMap<>(); // segmento -> primeira e última posição
+        Map<Integer, Segment> dirty = new TreeMap<>();
+        synchronized (this) {
+            if (deletedCount() == 0) {
+                return null;
+            }
+            size = size();
+            slots = readSlots(0, size);
+            for (int i = 0; i < size; i++) {
+                int number = (int) (slots.getLong(i * SLOT) >>> SEGMENT_SHIFT);
+                int[] range = ranges.get(number);
+                if (range == null) {
+                    ranges.put(number, new int[] { i, i });
+                } else {
+                    range[1] = i;
+                }
+                if ((slots.getInt(i * SLOT + FLAGS) & DELETED) != 0) {
+                    dirty.put(number, segment(slots.getLong(i * SLOT)));
+                }
+            }
+            deletedDuringRewrite = new ArrayList<>();
+        }
+        int[] remap;
+        long compacted;
+        try {
+            remap = writeCompacted(size, slots, ranges, dirty);
+        } finally {
+            synchronized (this) {
+                deletedDuringRewrite = null;
+                compacted = generation;
+            }
+        }
+        for (CompactionListener listener : compactionListeners) {
+            listener.compacted(remap, compacted);
+        }
+        return remap;
+    }
+
+    // Cópias e índice novo fora do lock (só a thread de escrita grava, então os slots só mudam por delete);
+    // sob o lock ficam as exclusões feitas nesse meio tempo e as trocas de arquivo
+    private int[] writeCompacted(int size, ByteBuffer slots, TreeMap<Integer, int[]> ranges,
+            Map<Integer, Segment> dirty) throws IOException {
+        long[] newOffsets = new long[size];
+        Map<Integer, Path> rewritten = new HashMap<>();
+        for (Segment segment : dirty.values()) {
+            int[] range = ranges.get(segment.number);
+            // Cada segmento continua no formato em que estava: o ativo segue recebendo appends
+            Path temp = segment.file.resolveSibling(segment.file.getFileName() + ".compact");
+            long written;
+            try (InputStream in = segment.open(slots.getLong(range[0] * SLOT) & OFFSET_MASK);
+                    SegmentWriter out = new SegmentWriter(temp, segment.packed)) {
+                for (int i = range[0]; i <= range[1]; i++) {
+                    long start = slots.getLong(i * SLOT) & OFFSET_MASK;
+                    long end = i < range[1] ? slots.getLong((i + 1) * SLOT) & OFFSET_MASK : segment.size;
+                    byte[] record = in.readNBytes((int) (end - start));
+                    if ((slots.getInt(i * SLOT + FLAGS) & DELETED) == 0) {
+                        newOffsets[i] = out.plainSize;
+                        out.add(record);
+                    }
+                }
+                written = out.plainSize;
+            }
+            if (written == 0) {
+                Files.delete(temp); // segmento inteiro apagado
+            }
+            rewritten.put(segment.number, written == 0 ? null : temp);
+        }
+
+        int[] remap = new int[size];
+        Path compactIndex = indexFile.resolveSibling(indexFile.getFileName() + ".compact");
+        try (FileChannel outIndex = FileChannel.open(compactIndex, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(outIndex, ByteBuffer.wrap(MAGIC), 0);
+            // Contadores mudam só na thread de escrita, que é esta; exclusões vêm de deletedDuringRewrite
+            ByteBuffer current = readSlots(0, size);
+            ByteBuffer chunk = ByteBuffer.allocate(SCAN_CHUNK * SLOT);
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int number = (int) (current.getLong(i * SLOT) >>> SEGMENT_SHIFT);
+                if ((slots.getInt(i * SLOT + FLAGS) & DELETED) != 0) {
+                    remap[i] = -1;
+                    continue;
+                }
+                remap[i] = next++;
+                ByteBuffer slot = current.slice(i * SLOT, SLOT);
+                if (rewritten.containsKey(number)) {
+                    slot.putLong(0, location(number, newOffsets[i]));
+                }
+                if (!chunk.hasRemaining()) {
+                    writeFully(outIndex, chunk.flip(), outIndex.size());
+                    chunk.clear();
+                }
+                chunk.put(slot);
+            }
+            writeFully(outIndex, chunk.flip(), outIndex.size());
+            outIndex.force(false);
+        }
+        synchronized (this) {
+            for (Map.Entry<Integer, Path> entry : rewritten.entrySet()) {
+                Segment old = segments.remove(entry.getKey());
+                old.close();
+                if (entry.getValue() == null) {
+                    deleteFile(old.file);
+                    if (old == active) {
+                        active = null;
+                    }
+                    continue;
+                }
+                Files.move(entry.getValue(), old.file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                Segment replaced = old.packed ? Segment.packed(old.number, old.file)
+                        : Segment.plain(old.number, old.file);
+                segments.put(old.number, replaced);
+                if (old == active) {
+                    replaced.day = old.day;
+                    active = replaced;
+                } else if (!replaced.packed) {
+                    later(() -> seal(replaced)); // a compressão pendente apontava para o arquivo antigo
+                }
+            }
+            index.close();
+            Files.move(compactIndex, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            index = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            for (int position : deletedDuringRewrite) {
+                if (remap[position] >= 0) {
+                    int flags = readSlot(remap[position]).getInt(FLAGS);
+                    writeFully(index, ByteBuffer.allocate(Integer.BYTES).putInt(0, flags | DELETED),
+                            slotPosition(remap[position]) + FLAGS);
+                }
+            }
+            positionsByHash.replaceAll((hash, position) -> remap[position]);
+            positionsByHash.values().removeIf(position -> position < 0);
+            remaps.put(generation, remap);
+            remaps.remove(generation - KEPT_REMAPS);
+            generation++;
+        }
+        return remap;
+    }
+
+    private Segment segment(long location) throws IOException {
+        Segment segment = segments.get((int) (location >>> SEGMENT_SHIFT));
+        if (segment == null) {
+            throw new IOException("Missing history segment " + (location >>> SEGMENT_SHIFT));
+        }
+        return segment;
+    }
+
+    // Fim do registro: início do próximo, se estiver no mesmo segmento, ou o fim do segmento
+    private long end(int position, Segment segment) throws IOException {
+        if (position + 1 < size()) {
+            long next = location(position + 1);
+            if ((int) (next >>> SEGMENT_SHIFT) == segment.number) {
+                return next & OFFSET_MASK;
+            }
+        }
+        return segment.size;
+    }
+
+    private static long location(int segment, long offset) {
+        return (long) segment << SEGMENT_SHIFT | offset;
+    }
+
+    private long location(int position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        readFully(index, buffer, slotPosition(position));
+        return buffer.getLong(0);
+    }
+
+    private ByteBuffer readSlot(int position) throws IOException {
+        return readSlots(position, 1);
+    }
+
+    private ByteBuffer readSlots(int position, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * SLOT);
+        readFully(index, buffer, slotPosition(position));
+        return buffer;
+    }
+
+    private void touch(int position, int uses) throws IOException {
+        ByteBuffer slot = readSlot(position);
+        slot.putLong(LAST_USED, System.currentTimeMillis());
+        slot.putInt(COUNT, slot.getInt(COUNT) + uses);
+        writeFully(index, slot, slotPosition(position));
+    }
+
+    private static long slotPosition(int position) {
+        return HEADER + (long) position * SLOT;
+    }
+
+    private static ByteBuffer slot(long location, long hash, long lastUsed, int count, int flags) {
+        return ByteBuffer.allocate(SLOT).putLong(0, location).putLong(HASH, hash).putLong(LAST_USED, lastUsed)
+                .putInt(COUNT, count).putInt(FLAGS, flags);
+    }
+
+    private static String segmentName(int number, boolean packed) {
+        return String.format("segment-%06d.%s", number, packed ? "z" : "log");
+    }
+
+    private static String month(long millis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(MONTH);
+    }
+
+    // Segmentos de todas as pastas; sobras de uma queda (temporários, .log já comprimido) são apagadas
+    private void loadSegments() throws IOException {
+        Map<Integer, Path> plain = new TreeMap<>();
+        Map<Integer, Path> packed = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                if (matcher.group(3) != null) {
+                    Files.delete(file);
+                } else {
+                    (matcher.group(2).equals("z") ? packed : plain).put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Path> entry : packed.entrySet()) {
+            Path leftover = plain.remove(entry.getKey());
+            if (leftover != null) {
+                Files.delete(leftover); // a compressão terminou, só o delete não aconteceu
+            }
+            segments.put(entry.getKey(), Segment.packed(entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<Integer, Path> entry : plain.entrySet()) {
+            segments.put(entry.getKey(), Segment.plain(entry.getKey(), entry.getValue()));
+        }
+        if (!segments.isEmpty() && !segments.lastEntry().getValue().packed) {
+            active = segments.lastEntry().getValue();
+            active.day = LocalDate.ofInstant(Files.getLastModifiedTime(active.file).toInstant(),
+                    ZoneId.systemDefault());
+        }
+    }
+
+    // Reindexa apenas os registros que ficaram sem slot (ex.: queda entre as duas escritas).
+    // Índice inexistente, de outra versão ou apontando para além dos segmentos é reconstruído do zero.
+    private void recoverIndex() throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(HEADER);
+        boolean valid = index.size() >= HEADER && index.read(magic, 0) == HEADER;
+        magic.flip();
+        // Índice do log único com só o segmento 0: a migração desta abertura ou de uma que caiu antes de
+        // trocar o magic. Os offsets valem para o segmento 0, então contadores e exclusões são mantidos.
+        if (valid && ByteBuffer.wrap(MAGIC_SINGLE_LOG).equals(magic) && segments.size() == 1
+                && segments.containsKey(0)) {
+            writeFully(index, ByteBuffer.wrap(MAGIC), 0);
+        } else if (!valid || !ByteBuffer.wrap(MAGIC).equals(magic)) {
+            index.truncate(0);
+            writeFully(index, ByteBuffer.wrap(MAGIC), 0);
+        }
+        index.truncate(index.size() - (index.size() - HEADER) % SLOT);
+        int count = size();
+        int scanSegment = segments.isEmpty() ? 0 : segments.firstKey();
+        long scanFrom = 0;
+        boolean skipFirst = false;
+        if (count > 0) {
+            long last = location(count - 1);
+            Segment segment = segments.get((int) (last >>> SEGMENT_SHIFT));
+            if (segment == null || (last & OFFSET_MASK) >= segment.size) {
+                index.truncate(HEADER);
+            } else {
+                scanSegment = segment.number;
+                scanFrom = last & OFFSET_MASK;
+                skipFirst = true;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments.tailMap(scanSegment, true).values()) {
+            long position = segment.number == scanSegment ? scanFrom : 0;
+            long recordStart = position;
+            try (InputStream in = segment.open(position)) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) != -1) {
+                    position++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    if (skipFirst) {
+                        skipFirst = false;
+                    } else {
+                        HistoryEntry entry = HistoryEntry.decode(line.toString(StandardCharsets.UTF_8));
+                        writeFully(index, slot(location(segment.number, recordStart),
+                                HistoryEntry.hash(entry.normalized()), now, 1, 0), index.size());
+                    }
+                    line.reset();
+                    recordStart = position;
+                }
+            }
+            // Registro incompleto no final do ativo é descartado
+            if (segment == active && recordStart < segment.size) {
+                segment.channel.truncate(recordStart);
+                segment.size = recordStart;
+            }
+        }
+    }
+
+    // Monta o mapa hash -> posição. Registros repetidos (histórico importado, por exemplo) são
+    // marcados como apagados e somados ao contador do primeiro.
+    private void loadHashes() throws IOException {
+        int size = size();
+        for (int start = 0; start < size; start += SCAN_CHUNK) {
+            synchronized (this) {
+                ByteBuffer slots = readSlots(start, Math.min(SCAN_CHUNK, size - start));
+                for (int i = 0; i < slots.limit() / SLOT; i++) {
+                    if ((slots.getInt(i * SLOT + FLAGS) & DELETED) != 0) {
+                        continue;
+                    }
+                    int position = start + i;
+                    long hash = slots.getLong(i * SLOT + HASH);
+                    Integer first = positionsByHash.putIfAbsent(hash, position);
+                    if (first != null && read(first).normalized().equals(read(position).normalized())) {
+                        touch(first, slots.getInt(i * SLOT + COUNT));
+                        delete(position);
+                    } else if (first != null) {
+                        positionsByHash.put(hash, position);
+                    }
+                }
+            }
+        }
+    }
+
+    private void importLegacy(Path legacyFile) throws IOException {
+        Path folder = directory.resolve(LocalDate.now().format(MONTH));
+        Files.createDirectories(folder);
+        try (BufferedReader reader = Files.newBufferedReader(legacyFile, StandardCharsets.UTF_8);
+                BufferedWriter writer = Files.newBufferedWriter(folder.resolve(segmentName(0, false)),
+                        StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                HistoryEntry entry = HistoryEntry.decodeLegacy(line);
+                if (entry != null) {
+                    writer.write(entry.encode());
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    // Tarefa para o fim da fila da thread de escrita; fechando, fica para a próxima abertura
+    private void later(IoTask task) {
+        if (!writer.isShutdown()) {
+            writer.execute(() -> background(task));
+        }
+    }
+
+    private static void background(IoTask task) {
+        try {
+            task.run();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // No Windows o arquivo não pode ser apagado enquanto alguém ainda o lê
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    // Grava o que ainda está na fila, espera as compressões pendentes e fecha os arquivos
+    @Override
+    public void close() throws IOException {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(this::drain);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            sync();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            index.close();
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    // remap: posição antiga -> nova (-1 para removidas); generation: a geração que as novas posições têm
+    public interface CompactionListener {
+        void compacted(int[] remap, long generation);
+    }
+
+    private static class Pending {
+        final HistoryEntry entry;
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        Pending(HistoryEntry entry) {
+            this.entry = entry;
+        }
+    }
+
+    // Um arquivo de segmento: simples (ativo, ou selado esperando a compressão) ou comprimido em blocos.
+    // Comprimido: blocos Deflate de ~BLOCK_BYTES que terminam sempre no fim de um registro, seguidos da
+    // tabela (início descomprimido e comprimido de cada bloco), do tamanho descomprimido, da quantidade de
+    // blocos e de PACKED_MAGIC.
+    private static class Segment {
+        static final int BLOCK_BYTES = 64 * 1024;
+        static final byte[] PACKED_MAGIC = "HSEG0001".getBytes(StandardCharsets.US_ASCII);
+        static final int FOOTER = Long.BYTES + Integer.BYTES + 8;
+
+        final int number;
+        final Path file;
+        final boolean packed;
+        final FileChannel channel;
+        long size; // descomprimido
+        LocalDate day; // só no ativo: a virada do dia sela o segmento
+        long[] plainStarts;
+        long[] packedStarts; // um a mais que plainStarts: o último é o início da tabela
+        int cachedBlock = -1;
+        byte[] cachedBytes;
+
+        private Segment(int number, Path file, boolean packed) throws IOException {
+            this.number = number;
+            this.file = file;
+            this.packed = packed;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        static Segment plain(int number, Path file) throws IOException {
+            if (!Files.exists(file)) {
+                Files.createFile(file);
+            }
+            Segment segment = new Segment(number, file, false);
+            segment.size = segment.channel.size();
+            return segment;
+        }
+
+        static Segment packed(int number, Path file) throws IOException {
+            Segment segment = new Segment(number, file, true);
+            long fileSize = segment.channel.size();
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER);
+            if (fileSize < FOOTER) {
+                throw new IOException("Corrupted history segment " + file);
+            }
+            readFully(segment.channel, footer, fileSize - FOOTER);
+            if (!footer.slice(Long.BYTES + Integer.BYTES, 8).equals(ByteBuffer.wrap(PACKED_MAGIC))) {
+                throw new IOException("Corrupted history segment " + file);
+            }
+            segment.size = footer.getLong(0);
+            int blocks = footer.getInt(Long.BYTES);
+            ByteBuffer table = ByteBuffer.allocate(blocks * 2 * Long.BYTES);
+            long tableStart = fileSize - FOOTER - table.capacity();
+            readFully(segment.channel, table, tableStart);
+            segment.plainStarts = new long[blocks];
+            segment.packedStarts = new long[blocks + 1];
+            for (int i = 0; i < blocks; i++) {
+                segment.plainStarts[i] = table.getLong(i * 2 * Long.BYTES);
+                segment.packedStarts[i] = table.getLong(i * 2 * Long.BYTES + Long.BYTES);
+            }
+            segment.packedStarts[blocks] = tableStart;
+            return segment;
+        }
+
+        // length bytes a partir de offset; num comprimido o trecho está sempre dentro de um bloco
+        byte[] read(long offset, int length) throws IOException {
+            if (!packed) {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                readFully(channel, buffer, offset);
+                return buffer.array();
+            }
+            int block = block(offset);
+            int from = (int) (offset - plainStarts[block]);
+            byte[] bytes;
+            if (block == cachedBlock) {
+                bytes = cachedBytes;
+            } else if (plainEnd(block) - plainStarts[block] <= 4 * BLOCK_BYTES) {
+                // blocos normais ficam em cache: a lista desenha várias linhas do mesmo bloco seguidas
+                bytes = inflate(channel, block, Integer.MAX_VALUE);
+                cachedBlock = block;
+                cachedBytes = bytes;
+            } else {
+                bytes = inflate(channel, block, from + length); // registro enorme: só o começo
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, from, result, 0, length);
+            return result;
+        }
+
+        // Leitura sequencial a partir de offset, com um canal próprio (funciona mesmo depois da troca
+        // do arquivo por uma compressão ou compactação)
+        InputStream open(long offset) throws IOException {
+            if (!packed) {
+                InputStream in = new BufferedInputStream(Files.newInputStream(file), BLOCK_BYTES);
+                in.skipNBytes(offset);
+                return in;
+            }
+            FileChannel own = FileChannel.open(file, StandardOpenOption.READ);
+            int first = plainStarts.length == 0 ? 0 : block(offset);
+            return new InputStream() {
+                int block = first;
+                byte[] bytes = new byte[0];
+                int position;
+                long skip = plainStarts.length == 0 ? 0 : offset - plainStarts[first];
+
+                private boolean fill() throws IOException {
+                    while (position == bytes.length) {
+                        if (block >= plainStarts.length) {
+                            return false;
+                        }
+                        bytes = inflate(own, block++, Integer.MAX_VALUE);
+                        position = (int) Math.min(skip, bytes.length);
+                        skip -= position;
+                    }
+                    return true;
+                }
+
+                @Override
+                public int read() throws IOException {
+                    return fill() ? bytes[position++] & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!fill()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, bytes.length - position);
+                    System.arraycopy(bytes, position, b, off, n);
+                    position += n;
+                    return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    own.close();
+                }
+            };
+        }
+
+        private int block(long offset) {
+            int i = Arrays.binarySearch(plainStarts, offset);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        private long plainEnd(int block) {
+            return block + 1 < plainStarts.length ? plainStarts[block + 1] : size;
+        }
+
+        // Descomprime o bloco até limit bytes
+        private byte[] inflate(FileChannel source, int block, int limit) throws IOException {
+            ByteBuffer compressed = ByteBuffer.allocate((int) (packedStarts[block + 1] - packedStarts[block]));
+            readFully(source, compressed, packedStarts[block]);
+            byte[] bytes = new byte[(int) Math.min(limit, plainEnd(block) - plainStarts[block])];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed.array(), 0, compressed.limit());
+                int filled = 0;
+                while (filled < bytes.length) {
+                    int n = inflater.inflate(bytes, filled, bytes.length - filled);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("Corrupted history segment " + file);
+                    }
+                    filled += n;
+                }
+                return bytes;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted history segment " + file, e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Grava um segmento registro a registro; comprimido, agrupa os registros em blocos Deflate independentes
+    private static class SegmentWriter implements Closeable {
+        private final FileChannel channel;
+        private final boolean packed;
+        private final Deflater deflater = new Deflater();
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private final byte[] buffer = new byte[Segment.BLOCK_BYTES];
+        private final List<long[]> blocks = new ArrayList<>();
+        long plainSize;
+        private long packedSize;
+
+        SegmentWriter(Path file, boolean packed) throws IOException {
+            this.packed = packed;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void add(byte[] record) throws IOException {
+            if (!packed) {
+                writeFully(channel, ByteBuffer.wrap(record), plainSize);
+                plainSize += record.length;
+                return;
+            }
+            block.write(record);
+            plainSize += record.length;
+            if (block.size() >= Segment.BLOCK_BYTES) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.size() == 0) {
+                return;
+            }
+            blocks.add(new long[] { plainSize - block.size(), packedSize });
+            deflater.reset();
+            deflater.setInput(block.toByteArray());
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                writeFully(channel, ByteBuffer.wrap(buffer, 0, n), packedSize);
+                packedSize += n;
+            }
+            block.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!packed) {
+                    channel.force(false);
+                    return;
+                }
+                flushBlock();
+                ByteBuffer table = ByteBuffer.allocate(blocks.size() * 2 * Long.BYTES + Segment.FOOTER);
+                for (long[] entry : blocks) {
+                    table.putLong(entry[0]).putLong(entry[1]);
+                }
+                table.putLong(plainSize).putInt(blocks.size()).put(Segment.PACKED_MAGIC).flip();
+                writeFully(channel, table, packedSize);
+                channel.force(false);
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+    }
+
+    public static class Summary {
+        final int position;
+        final long generation; // a posição vale nesta geração (veja HistoryStore.translate)
+        final String method;
+        final String url;
+        final int count;
+        final long lastUsed;
+        final boolean deleted;
+
+        public Summary(int position, long generation, String method, String url) {
+            this(position, generation, method, url, 1, 0, false);
+        }
+
+        public Summary(int position, long generation, String method, String url, int count, long lastUsed,
+                boolean deleted) {
+            this.position = position;
+            this.generation = generation;
+            this.method = method;
+            this.url = url;
+            this.count = count;
+            this.lastUsed = lastUsed;
+            this.deleted = deleted;
+        }
+
+        @Override
+        public String toString() {
+            return (deleted ? "[deleted] " : "") + method + " " + url + (count > 1 ? "  (x" + count + ")" : "");
+        }
+    }
+}
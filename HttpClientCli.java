@@ -0,0 +1,543 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpServer;
+
+// Modo sem janela, para scripts e CI: envia pelo HttpClientService e escreve respostas e tempos no stdout.
+// Não pode carregar nenhuma classe de AWT/Swing (nada de HttpClientUi, ResponseViewer etc. aqui).
+// As requisições saem em paralelo pelo mesmo HttpClient (conexões reaproveitadas), mas o resultado é
+// impresso na ordem de entrada; no máximo --parallel respostas ficam pendentes ao mesmo tempo.
+public class HttpClientCli {
+
+    private static final String USAGE = """
+            Usage: HttpClientCli [options] [METHOD] URL
+                   HttpClientCli [options] --jsonl FILE|-
+                   HttpClientCli [options] --records FILE|-
+                   HttpClientCli [options] --history all|0,3,5-9
+
+              -H, --header 'Name: value'   request header (repeatable)
+              -d, --data BODY|@file        raw body
+              -F, --form name=value|name=@file   multipart field (repeatable)
+              --jsonl FILE|-               one request per line: {"method", "url", "headers", "body", "form"}
+              --records FILE|-             one history record per line (history segment format)
+              --history SELECTION          entries of the history in the current directory
+              --rows FILE|-                send the request once per row of a CSV, TSV or JSONL file,
+                                           filling its {{variables}} from the columns / members
+              --rows-format csv|tsv|jsonl  (default from the file extension, csv for -)
+              --env NAME                   variables from environments.properties (env.NAME.*)
+              --var name=value             variable for {{name}} (repeatable, wins over --env)
+              --parallel N                 requests in flight (default 4)
+              --timeout SECONDS            per request (default 30)
+              --profile NAME               client profile from profiles.properties
+              --cache                      use the response cache
+              --gzip-body                  gzip request bodies of 1 KB or more
+              --output full|head|body|status|jsonl   (default full)
+              --extract JSONPATH           print only the matching values of the body, one per line
+                                           ($.items[*].id, $..name, $.items[?(@.price > 10)])
+              --timing                     print the timing table after each response
+              --save                       record the requests in the history
+            """;
+
+    private final HttpClientService service;
+    private final PrintStream out;
+    private int parallelism = 4;
+    private Duration timeout = Duration.ofSeconds(30);
+    private String output = "full";
+    private JsonPath extract;
+    private boolean timing;
+    private boolean save;
+
+    public HttpClientCli(HttpClientService service, PrintStream out) {
+        this.service = service;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && args[0].equals("--training-run")) {
+            trainingRun();
+            return;
+        }
+        try {
+            System.exit(run(args, System.out));
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+    }
+
+    // Código de saída: 0 se tudo respondeu < 400, 1 se algo falhou
+    static int run(String[] args, PrintStream stdout) throws IOException {
+        HttpClientService service = new HttpClientService();
+        HttpClientCli cli = new HttpClientCli(service, stdout);
+        List<String> positional = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
+        List<HttpClientService.FormField> form = new ArrayList<>();
+        String method = null;
+        String data = null;
+        Iterator<Input> source = null;
+        String rows = null;
+        String rowsFormat = null;
+        String environment = null;
+        Map<String, String> variables = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-X", "--method" -> method = value(args, ++i);
+                case "-H", "--header" -> headers.add(value(args, ++i));
+                case "-d", "--data" -> data = readArgument(value(args, ++i));
+                case "-F", "--form" -> form.add(formField(value(args, ++i)));
+                case "--jsonl" -> source = lines(value(args, ++i), HttpClientCli::fromJson);
+                case "--records" -> source = lines(value(args, ++i), HistoryEntry::decode);
+                case "--history" -> source = history(service.history(), value(args, ++i));
+                case "--rows" -> rows = value(args, ++i);
+                case "--rows-format" -> rowsFormat = value(args, ++i);
+                case "--env" -> environment = value(args, ++i);
+                case "--var" -> {
+                    String[] kv = value(args, ++i).split("=", 2);
+                    variables.put(kv[0], kv.length > 1 ? kv[1] : "");
+                }
+                case "--parallel" -> cli.parallelism = Math.max(1, Integer.parseInt(value(args, ++i)));
+                case "--timeout" -> cli.timeout = Duration.ofSeconds(Long.parseLong(value(args, ++i)));
+                case "--profile" -> service.setProfile(value(args, ++i));
+                case "--cache" -> service.setCacheEnabled(true);
+                case "--gzip-body" -> service.setCompressRequests(true);
+                case "--output" -> cli.output = value(args, ++i);
+                case "--extract" -> cli.extract = JsonPath.compile(value(args, ++i));
+                case "--timing" -> cli.timing = true;
+                case "--save" -> cli.save = true;
+                case "-h", "--help" -> {
+                    stdout.print(USAGE);
+                    return 0;
+                }
+                default -> {
+                    if (args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    positional.add(args[i]);
+                }
+            }
+        }
+        if (!List.of("full", "head", "body", "status", "jsonl").contains(cli.output)) {
+            throw new IllegalArgumentException("Unknown output " + cli.output);
+        }
+        if (source == null) {
+            if (positional.isEmpty() || positional.size() > 2) {
+                throw new IllegalArgumentException("Expected [METHOD] URL");
+            }
+            String url = positional.get(positional.size() - 1);
+            if (method == null) {
+                method = positional.size() == 2 ? positional.get(0) : data != null || !form.isEmpty() ? "POST" : "GET";
+            }
+            HistoryEntry entry = new HistoryEntry(method.toUpperCase(Locale.ROOT), url, String.join("\n", headers),
+                    form.isEmpty() ? "Raw" : "Form-Data", data != null ? data : "", form);
+            source = List.of(new Input(entry, null)).iterator();
+        } else if (!positional.isEmpty()) {
+            throw new IllegalArgumentException("URL arguments cannot be mixed with --jsonl/--records/--history");
+        }
+        if (rows != null || environment != null || !variables.isEmpty()) {
+            Map<String, String> base = new HashMap<>(service.environments().variables(environment));
+            base.putAll(variables);
+            source = rows != null ? rows(template(source), DataRows.open(rows, rowsFormat), base)
+                    : render(source, base);
+        }
+        return cli.run(source);
+    }
+
+    // --rows usa uma única requisição como template (da linha de comando ou --history N)
+    private static RequestTemplate template(Iterator<Input> source) {
+        Input input = source.hasNext() ? source.next() : null;
+        if (input == null || source.hasNext()) {
+            throw new IllegalArgumentException("--rows needs exactly one request as template");
+        }
+        if (input.error != null) {
+            throw new IllegalArgumentException(input.error);
+        }
+        return RequestTemplate.compile(input.entry);
+    }
+
+    // Uma requisição por linha, renderizada só quando o pipeline pede a próxima
+    private static Iterator<Input> rows(RequestTemplate template, DataRows data, Map<String, String> base) {
+        Map<String, String> values = new HashMap<>(base);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return data.hasNext();
+            }
+
+            @Override
+            public Input next() {
+                DataRows.Row row = data.next();
+                if (row.error != null) {
+                    return new Input(null, row.error);
+                }
+                values.putAll(row.values);
+                RequestTemplate.Rendered rendered = template.render(values);
+                values.keySet().retainAll(base.keySet());
+                values.putAll(base);
+                return rendered(rendered, "line " + row.line + ": ");
+            }
+        };
+    }
+
+    private static Iterator<Input> render(Iterator<Input> source, Map<String, String> values) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Input next() {
+                Input input = source.next();
+                return input.error != null ? input
+                        : rendered(RequestTemplate.compile(input.entry).render(values), "");
+            }
+        };
+    }
+
+    private static Input rendered(RequestTemplate.Rendered rendered, String where) {
+        if (!rendered.missing.isEmpty()) {
+            return new Input(null, where + "no value for " + String.join(", ", rendered.missing));
+        }
+        Input input = new Input(rendered.toEntry(), null);
+        input.rendered = rendered;
+        return input;
+    }
+
+    private int run(Iterator<Input> source) {
+        Deque<CompletableFuture<Outcome>> pending = new ArrayDeque<>();
+        int failures = 0;
+        int index = 0;
+        while (source.hasNext()) {
+            Input input = source.next();
+            while (pending.size() >= parallelism) {
+                failures += print(pending.poll().join());
+            }
+            pending.add(send(index++, input));
+            while (!pending.isEmpty() && pending.peek().isDone()) {
+                failures += print(pending.poll().join());
+            }
+        }
+        while (!pending.isEmpty()) {
+            failures += print(pending.poll().join());
+        }
+        out.flush();
+        return failures == 0 ? 0 : 1;
+    }
+
+    private CompletableFuture<Outcome> send(int index, Input input) {
+        Outcome outcome = new Outcome(index, input.entry);
+        if (input.error != null) {
+            outcome.error = input.error;
+            return CompletableFuture.completedFuture(outcome);
+        }
+        HistoryEntry entry = input.entry;
+        if (save) {
+            service.saveFullHistory(entry.method, entry.url, entry.headers, entry.bodyType, entry.rawBody,
+                    entry.fields);
+        }
+        RequestTemplate.Rendered rendered = input.rendered != null ? input.rendered
+                : RequestTemplate.Rendered.of(entry);
+        return service.sendAsync(rendered, timeout, null, null).handle((result, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        outcome.error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+                    } else {
+                        outcome.result = result;
+                    }
+                    return outcome;
+                });
+    }
+
+    // Devolve 1 se a requisição falhou (erro ou status >= 400)
+    private int print(Outcome outcome) {
+        HttpClientService.HttpResult result = outcome.result;
+        try {
+            if (output.equals("jsonl")) {
+                out.println(toJson(outcome));
+            } else if (result == null) {
+                System.err.println("#" + outcome.index + " " + describe(outcome.entry) + ": " + outcome.error);
+            } else if (output.equals("status")) {
+                out.printf(Locale.ROOT, "%d %s %.1f ms %s%s%n", result.status, describe(outcome.entry),
+                        result.timing.totalNanos / 1e6, TransferListener.humanBytes(result.body.size()),
+                        result.cacheStatus != null ? " cache=" + result.cacheStatus : "");
+            } else {
+                if (!output.equals("body")) {
+                    out.print(result.head);
+                    if (output.equals("full")) {
+                        out.println();
+                    }
+                }
+                if (!output.equals("head") && extract != null) {
+                    // em streaming: só os valores encontrados viram String
+                    try (Reader reader = new InputStreamReader(result.body.openStream(), result.body.charset())) {
+                        extract.evaluate(reader, value -> {
+                            out.println(JsonPath.unquote(value));
+                            return true;
+                        });
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("#" + outcome.index + " " + describe(outcome.entry) + ": " + e.getMessage());
+                        return 1;
+                    }
+                } else if (!output.equals("head")) {
+                    try (InputStream body = result.body.openStream()) {
+                        body.transferTo(out);
+                    }
+                    out.println();
+                }
+            }
+            if (timing && result != null && !output.equals("jsonl")) {
+                out.println();
+                out.print(result.timing);
+            }
+        } catch (IOException e) {
+            // corpo ilegível (arquivo temporário sumiu, disco...) conta como uma requisição que falhou
+            System.err.println("#" + outcome.index + " " + describe(outcome.entry) + ": " + e.getMessage());
+            return 1;
+        } finally {
+            if (result != null) {
+                result.body.discard();
+            }
+        }
+        return result != null && result.status < 400 ? 0 : 1;
+    }
+
+    private static String describe(HistoryEntry entry) {
+        return entry == null ? "-" : entry.method + " " + entry.url;
+    }
+
+    private String toJson(Outcome outcome) {
+        StringBuilder sb = new StringBuilder("{\"index\":").append(outcome.index);
+        if (outcome.entry != null) {
+            sb.append(",\"method\":").append(JsonPrettyPrinter.quote(outcome.entry.method));
+            sb.append(",\"url\":").append(JsonPrettyPrinter.quote(outcome.entry.url));
+        }
+        HttpClientService.HttpResult result = outcome.result;
+        if (result == null) {
+            return sb.append(",\"error\":").append(JsonPrettyPrinter.quote(outcome.error)).append('}').toString();
+        }
+        RequestTiming t = result.timing;
+        sb.append(",\"status\":").append(result.status);
+        sb.append(",\"cache\":").append(result.cacheStatus == null ? "null"
+                : JsonPrettyPrinter.quote(result.cacheStatus));
+        sb.append(String.format(Locale.ROOT, ",\"timing\":{\"buildMs\":%.3f,\"firstByteMs\":%.3f,"
+                + "\"downloadMs\":%.3f,\"totalMs\":%.3f,\"bytesOut\":%d,\"bytesIn\":%d,\"bytesDecoded\":%d}",
+                t.buildNanos / 1e6, t.firstByteNanos / 1e6, t.downloadNanos / 1e6, t.totalNanos / 1e6, t.bytesOut,
+                t.bytesIn, t.bytesDecoded));
+        sb.append(",\"head\":").append(JsonPrettyPrinter.quote(result.head));
+        if (extract == null) {
+            sb.append(",\"body\":").append(JsonPrettyPrinter.quote(result.body.text()));
+            return sb.append('}').toString();
+        }
+        sb.append(",\"extracted\":[");
+        try (Reader reader = new InputStreamReader(result.body.openStream(), result.body.charset())) {
+            extract.evaluate(reader, value -> {
+                sb.append(sb.charAt(sb.length() - 1) == '[' ? "" : ",").append(value);
+                return true;
+            });
+        } catch (IOException | RuntimeException e) {
+            sb.append("],\"extractError\":").append(JsonPrettyPrinter.quote(String.valueOf(e.getMessage())));
+            return sb.append('}').toString();
+        }
+        return sb.append("]}").toString();
+    }
+
+    // {"method": "POST", "url": "...", "headers": ["A: b"] ou "A: b\nC: d", "body": "..." ou qualquer JSON,
+    //  "form": ["name=value", "file=@/caminho"]}
+    static HistoryEntry fromJson(String line) {
+        String url = JsonPath.compile("$.url").extract(line);
+        if (url == null) {
+            throw new IllegalArgumentException("missing \"url\"");
+        }
+        String method = JsonPath.compile("$.method").extract(line);
+        String headers = JsonPath.compile("$.headers").extract(line);
+        if (headers != null && headers.startsWith("[")) {
+            headers = String.join("\n", array(line, "$.headers"));
+        }
+        String body = JsonPath.compile("$.body").extract(line);
+        List<HttpClientService.FormField> form = new ArrayList<>();
+        for (String field : array(line, "$.form")) {
+            form.add(formField(field));
+        }
+        if (method == null) {
+            method = body != null || !form.isEmpty() ? "POST" : "GET";
+        }
+        return new HistoryEntry(method.toUpperCase(Locale.ROOT), url, headers != null ? headers : "",
+                form.isEmpty() ? "Raw" : "Form-Data", body != null ? body : "", form);
+    }
+
+    private static List<String> array(String json, String path) {
+        try {
+            return JsonPath.compile(path + "[*]").extractAll(new StringReader(json), Integer.MAX_VALUE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HttpClientService.FormField formField(String spec) {
+        String[] kv = spec.split("=", 2);
+        if (kv.length < 2) {
+            throw new IllegalArgumentException("Form field must be name=value or name=@file: " + spec);
+        }
+        return kv[1].startsWith("@") ? new HttpClientService.FormField(kv[0], kv[1].substring(1), true)
+                : new HttpClientService.FormField(kv[0], kv[1], false);
+    }
+
+    private static String readArgument(String value) throws IOException {
+        return value.startsWith("@") ? Files.readString(Paths.get(value.substring(1))) : value;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        }
+        return args[i];
+    }
+
+    // Lê sob demanda: com "-" as requisições começam a sair antes do fim do stdin
+    private static Iterator<Input> lines(String file, Function<String, HistoryEntry> parser)
+            throws IOException {
+        BufferedReader reader = file.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8);
+        return new Iterator<>() {
+            private int number;
+            private Input next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Input next() {
+                Input current = next;
+                next = advance();
+                return current;
+            }
+
+            private Input advance() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        number++;
+                        if (line.isBlank() || line.startsWith("#")) {
+                            continue;
+                        }
+                        try {
+                            return new Input(parser.apply(line), null);
+                        } catch (RuntimeException e) {
+                            return new Input(null, "line " + number + ": " + e.getMessage());
+                        }
+                    }
+                    reader.close();
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static Iterator<Input> history(HistoryStore history, String selection) {
+        List<int[]> ranges = new ArrayList<>();
+        if (selection.equals("all")) {
+            ranges.add(new int[] { 0, history.size() - 1 });
+        } else {
+            for (String part : selection.split(",")) {
+                String[] bounds = part.strip().split("-", 2);
+                int from = Integer.parseInt(bounds[0].strip());
+                ranges.add(new int[] { from, bounds.length > 1 ? Integer.parseInt(bounds[1].strip()) : from });
+            }
+        }
+        return ranges.stream().flatMapToInt(range -> IntStream.rangeClosed(range[0], range[1]))
+                .mapToObj(position -> {
+                    try {
+                        if (position >= history.size() || history.isDeleted(position)) {
+                            return selection.equals("all") ? null
+                                    : new Input(null, "no history entry at " + position);
+                        }
+                        return new Input(history.read(position), null);
+                    } catch (IOException e) {
+                        return new Input(null, "history entry " + position + ": " + e.getMessage());
+                    }
+                }).filter(Objects::nonNull).iterator();
+    }
+
+    // Execução de treino para o arquivo AppCDS (mvn package): exercita o caminho do CLI contra um servidor
+    // local para que as classes do HttpClient, do gzip e da saída entrem no arquivo
+    private static void trainingRun() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"item ").append(i)
+                    .append("\"}");
+        }
+        byte[] plain = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(plain);
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            boolean gzip = exchange.getRequestURI().getPath().equals("/gzip");
+            byte[] body = gzip ? gzipped.toByteArray() : plain;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (gzip) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            File requests = File.createTempFile("training", ".jsonl");
+            requests.deleteOnExit();
+            Files.writeString(requests.toPath(), "{\"url\":\"" + base + "/gzip\"}\n{\"method\":\"POST\",\"url\":\""
+                    + base + "/\",\"headers\":[\"X-Test: 1\"],\"body\":{\"a\":1}}\n");
+            PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+            run(new String[] { base + "/", "--timing" }, sink);
+            run(new String[] { "--jsonl", requests.getPath(), "--output", "jsonl" }, sink);
+            run(new String[] { "--jsonl", requests.getPath(), "--output", "status", "--gzip-body" }, sink);
+        } finally {
+            server.stop(0);
+        }
+        System.exit(0);
+    }
+
+    private static class Input {
+        final HistoryEntry entry;
+        final String error;
+        RequestTemplate.Rendered rendered; // headers já separados, quando veio de um template
+
+        Input(HistoryEntry entry, String error) {
+            this.entry = entry;
+            this.error = error;
+        }
+    }
+
+    private static class Outcome {
+        final int index;
+        final HistoryEntry entry;
+        HttpClientService.HttpResult result;
+        String error;
+
+        Outcome(int index, HistoryEntry entry) {
+            this.index = index;
+            this.entry = entry;
+        }
+    }
+}
@@ -2,170 +2,579 @@
 import java.io.*;
 import java.net.URI;
 import java.net.http.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 public class HttpClientService {
 
-    private static final String HISTORY_FILE = "history.txt";
-    public HttpClient client;
+    private static final String LEGACY_HISTORY_FILE = "history.txt";
+    private static final String LEGACY_HISTORY_LOG = "history.log";
+    private static final String HISTORY_DIR = "history";
+    private static final String HISTORY_INDEX_FILE = "history.idx";
+    private static final String SEARCH_INDEX_FILE = "history.search";
+    private static final String PROFILES_FILE = "profiles.properties";
+    private static final String ENVIRONMENTS_FILE = "environments.properties";
+    private static final String CACHE_DIR = "cache";
+    private static final long CACHE_MAX_BYTES = 256L * 1024 * 1024;
+    public static final String CACHE_HIT = "hit";
+    public static final String CACHE_REVALIDATED = "revalidated";
+    public static final String CACHE_MISS = "miss";
+    private static final long SEARCH_SAVE_DELAY_MS = 5000;
+    private static final int DISPLAY_LIMIT = 2 * 1024 * 1024;
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final long COMPRESS_MIN_BYTES = 1024;
+    // Enviados sempre sem corpo (e sem o Content-Type padrão)
+    private static final Set<String> NO_BODY_METHODS = Set.of("GET", "HEAD", "DELETE", "OPTIONS", "TRACE");
+    private final ClientProfiles profiles;
+    private volatile String profile = ClientProfiles.DEFAULT;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private long spillThreshold = 8 * 1024 * 1024;
+    // Abertos no primeiro uso: quem só envia requisições (CLI) não paga pela abertura do histórico
+    private HistoryStore history;
+    private HistorySearchIndex search;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final AtomicBoolean searchSaveScheduled = new AtomicBoolean();
+    private volatile boolean cacheEnabled;
+    private volatile boolean compressRequests;
+    private ResponseCache cache;
+    private Environments environments;
+    private volatile String environment;
+    // Valores capturados de respostas nesta sessão; valem em todos os ambientes e têm precedência
+    private final Map<String, String> captured = new ConcurrentHashMap<>();
 
     public HttpClientService() {
-        TrustManager trust509 = new X509TrustManager() {
-            public X509Certificate[] getAcceptedIssuers() {
-                return new X509Certificate[0];
+        try {
+            profiles = new ClientProfiles(Paths.get(PROFILES_FILE), executor);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private synchronized void openHistory() {
+        if (history != null) {
+            return;
+        }
+        try {
+            history = new HistoryStore(Paths.get(HISTORY_DIR), Paths.get(HISTORY_INDEX_FILE),
+                    Paths.get(LEGACY_HISTORY_LOG), Paths.get(LEGACY_HISTORY_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        search = new HistorySearchIndex(history, Paths.get(SEARCH_INDEX_FILE));
+        HistoryStore store = history;
+        HistorySearchIndex index = search;
+        executor.execute(() -> {
+            try {
+                store.compact();
+                index.load();
+                scheduleSearchSave();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                store.close(); // grava o que ainda está na fila
+                index.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+    }
+
+    private synchronized HistorySearchIndex search() {
+        openHistory();
+        return search;
+    }
 
-            @Override
-            public void checkClientTrusted(X509Certificate[] chain, String authType)
-                    throws CertificateException {
+    public HttpClient client() {
+        return profiles.client(profile);
+    }
 
-            }
+    public ClientProfiles profiles() {
+        return profiles;
+    }
+
+    public String profile() {
+        return profile;
+    }
+
+    // Perfis editados no arquivo valem a partir daqui; um perfil escolhido que sumiu volta ao padrão
+    public boolean reloadProfiles() throws IOException {
+        if (!profiles.reloadIfChanged()) {
+            return false;
+        }
+        if (!profiles.names().contains(profile)) {
+            profile = ClientProfiles.DEFAULT;
+        }
+        return true;
+    }
+
+    public void setProfile(String name) {
+        profiles.get(name); // valida
+        profile = name;
+    }
+
+    // Opcional: só os GETs enviados com o cache ligado consultam e alimentam o cache
+    public void setCacheEnabled(boolean enabled) {
+        cacheEnabled = enabled;
+    }
 
-            @Override
-            public void checkServerTrusted(X509Certificate[] chain, String authType)
-                    throws CertificateException {
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    // Compacta com gzip os corpos Raw e Form-Data a partir de COMPRESS_MIN_BYTES (o servidor precisa aceitar
+    // Content-Encoding: gzip na requisição)
+    public void setCompressRequests(boolean compress) {
+        compressRequests = compress;
+    }
+
+    public boolean isCompressRequests() {
+        return compressRequests;
+    }
 
+    public synchronized Environments environments() {
+        if (environments == null) {
+            try {
+                environments = new Environments(Paths.get(ENVIRONMENTS_FILE));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        };
-        TrustManager[] trustAllCerts = new TrustManager[] { trust509 };
+        }
+        return environments;
+    }
 
-        try {
-            SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
+    public String environment() {
+        return environment;
+    }
 
-            client = HttpClient.newBuilder()
-                    .sslContext(sslContext)
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
+    // Ambiente cujas variáveis preenchem os {{templates}} dos envios; null desliga a substituição
+    public void setEnvironment(String name) {
+        if (name != null) {
+            environments().variables(name); // valida
         }
+        environment = name;
+    }
 
+    public Map<String, String> variables() {
+        String name = environment;
+        Map<String, String> variables = name == null ? Map.of() : environments().variables(name);
+        if (captured.isEmpty()) {
+            return variables;
+        }
+        Map<String, String> merged = new HashMap<>(variables);
+        merged.putAll(captured);
+        return merged;
+    }
+
+    // Primeiro valor de expression no corpo, lido em streaming (sem carregar o corpo numa String)
+    public static String extract(ResponseBody body, String expression) throws IOException {
+        List<String> values = extract(body, expression, 1);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    public static List<String> extract(ResponseBody body, String expression, int limit) throws IOException {
+        JsonPath path = JsonPath.compile(expression);
+        try (Reader reader = new InputStreamReader(body.openStream(), body.charset())) {
+            return path.extractAll(reader, limit);
+        }
+    }
+
+    // Guarda o valor extraído como {{variable}} para os próximos envios; null se não houver resultado
+    public String capture(String variable, ResponseBody body, String expression) throws IOException {
+        String value = extract(body, expression);
+        if (value != null) {
+            captured.put(variable, value);
+        }
+        return value;
+    }
+
+    // Aplica o ambiente ativo; sem ambiente o texto vai como está
+    private RequestTemplate.Rendered resolve(String method, String url, String headers, String bodyType,
+            String rawBody, List<FormField> fields) {
+        HistoryEntry entry = new HistoryEntry(method, url, headers, bodyType, rawBody, fields);
+        Map<String, String> variables = variables();
+        if (variables.isEmpty()) {
+            return RequestTemplate.Rendered.of(entry);
+        }
+        // Com variáveis definidas, um {{nome}} sem valor é erro, como no CLI e no Run Data
+        RequestTemplate.Rendered rendered = RequestTemplate.compile(entry).render(variables);
+        if (!rendered.missing.isEmpty()) {
+            throw new IllegalArgumentException("No value for " + String.join(", ", rendered.missing));
+        }
+        return rendered;
+    }
+
+    public synchronized ResponseCache cache() {
+        if (cache == null) {
+            try {
+                cache = new ResponseCache(Paths.get(CACHE_DIR), CACHE_MAX_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return cache;
+    }
+
+    public CompletableFuture<String> warmUp(String url) {
+        return profiles.warmUp(profile, url);
     }
 
     public String sendHttpRequest(String method, String url, String headers, String bodyType, String rawBody,
             List<FormField> fields) throws Exception {
+        RequestTemplate.Rendered rendered = resolve(method, url, headers, bodyType, rawBody, fields);
+        RequestTiming timing = RequestTiming.start(rendered.method, rendered.url);
+        HttpRequest request = buildRequest(rendered, null, null);
+        timing.built(request);
+        HttpResponse<ResponseBody> response = client().send(request,
+                timing.track(ResponseBody.handler(spillThreshold, null)));
+        timing.finished(response);
+        try {
+            return formatResponse(response);
+        } finally {
+            response.body().discard(); // só o texto formatado sai daqui
+        }
+    }
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url));
+    public CompletableFuture<HttpResult> sendHttpRequestAsync(String method, String url, String headers,
+            String bodyType, String rawBody, List<FormField> fields, Duration timeout, TransferListener upload,
+            TransferListener progress) {
+        RequestTemplate.Rendered rendered;
+        try {
+            rendered = resolve(method, url, headers, bodyType, rawBody, fields);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return sendAsync(rendered, timeout, upload, progress);
+    }
 
+    // Envia uma requisição já renderizada (nenhuma substituição de variáveis acontece aqui)
+    public CompletableFuture<HttpResult> sendAsync(RequestTemplate.Rendered rendered, Duration timeout,
+            TransferListener upload, TransferListener progress) {
+        CompletableFuture<HttpResult> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                RequestTiming timing = RequestTiming.start(rendered.method, rendered.url);
+                HttpRequest request = buildRequest(rendered, timeout, upload);
+                timing.built(request);
+                ResponseCache cache = cacheEnabled ? cache() : null;
+                ResponseCache.Entry cached = cache != null ? cache.lookup(request) : null;
+                if (cached != null && ResponseCache.isFresh(cached, request)) {
+                    timing.fromCache();
+                    result.complete(new HttpResult(cached.status, formatHead(cached.status, cached.headers),
+                            cache.body(cached), timing, CACHE_HIT));
+                    return;
+                }
+                HttpRequest sent = cached != null ? ResponseCache.conditional(request, cached) : request;
+                CompletableFuture<HttpResponse<ResponseBody>> exchange = client().sendAsync(sent,
+                        timing.track(ResponseBody.handler(spillThreshold, progress)));
+                result.whenComplete((r, t) -> {
+                    if (result.isCancelled()) {
+                        exchange.cancel(true);
+                    }
+                });
+                exchange.whenComplete((response, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                    timing.finished(response);
+                    try {
+                        if (cached != null && response.statusCode() == 304) {
+                            response.body().discard();
+                            ResponseCache.Entry entry = cache.revalidated(cached, response);
+                            result.complete(new HttpResult(entry.status, formatHead(entry.status, entry.headers),
+                                    cache.body(entry), timing, CACHE_REVALIDATED));
+                            return;
+                        }
+                        if (cache != null) {
+                            cache.store(request, response);
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace(); // falha no cache não invalida a resposta
+                    }
+                    result.complete(new HttpResult(response.statusCode(), formatHead(response), response.body(),
+                            timing, cache != null ? CACHE_MISS : null));
+                });
+            } catch (Exception ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    public HttpResponse<ResponseBody> sendEntry(RequestTemplate.Rendered rendered, Duration timeout)
+            throws Exception {
+        return client().send(buildRequest(rendered, timeout, null), ResponseBody.handler(spillThreshold, null));
+    }
+
+    // SSE/streaming HTTP ou, para ws:// e wss://, WebSocket. Os eventos vão para o anel de capacity eventos
+    // e, se logFile não for null, todos são acrescentados ao arquivo (JSONL).
+    public EventStream openEventStream(String method, String url, String headers, String bodyType, String rawBody,
+            List<FormField> fields, Duration timeout, int capacity, Path logFile) throws IOException {
+        RequestTemplate.Rendered rendered = resolve(method, url, headers, bodyType, rawBody, fields);
+        EventRing ring = new EventRing(capacity);
+        if (EventStream.isWebSocket(rendered.url)) {
+            return EventStream.webSocket(client(), URI.create(rendered.url), rendered.headers, timeout, ring,
+                    logFile);
+        }
+        Set<String> names = new HashSet<>();
+        rendered.headers.forEach(header -> names.add(header[0].toLowerCase(Locale.ROOT)));
+        if (!names.contains("accept")) {
+            rendered.headers.add(new String[] { "Accept", "text/event-stream" });
+        }
+        // As linhas são lidas direto do corpo, sem passar pelo ContentDecoder
+        if (!names.contains("accept-encoding")) {
+            rendered.headers.add(new String[] { "Accept-Encoding", "identity" });
+        }
+        if (!names.contains("cache-control")) {
+            rendered.headers.add(new String[] { "Cache-Control", "no-cache" });
+        }
+        return EventStream.sse(client(), buildRequest(rendered, timeout, null), ring, logFile);
+    }
+
+    public LoadTest newLoadTest(String method, String url, String headers, String bodyType, String rawBody,
+            List<FormField> fields, LoadTest.Config config) throws IOException {
+        return new LoadTest(client(), buildRequest(resolve(method, url, headers, bodyType, rawBody, fields),
+                config.timeout, null), config);
+    }
+
+    // Uma linha por header, "Nome: valor"; linhas sem ':' são ignoradas
+    static List<String[]> parseHeaders(String headers) {
+        List<String[]> parsed = new ArrayList<>();
         for (String line : headers.split("\n")) {
-            if (line.contains(":")) {
-                String[] parts = line.split(":", 2);
-                builder.header(parts[0].trim(), parts[1].trim());
+            int colon = line.indexOf(':');
+            if (colon >= 0) {
+                parsed.add(new String[] { line.substring(0, colon).trim(), line.substring(colon + 1).trim() });
             }
         }
+        return parsed;
+    }
 
-        if (method.equals("GET") || method.equals("DELETE")) {
+    private HttpRequest buildRequest(RequestTemplate.Rendered rendered, Duration timeout, TransferListener upload)
+            throws IOException {
+        String method = rendered.method;
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(rendered.url));
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+
+        boolean noBody = NO_BODY_METHODS.contains(method);
+        boolean multipart = !noBody && !rendered.bodyType.equals("Raw");
+        Set<String> names = new HashSet<>();
+        String contentType = null;
+        for (String[] header : rendered.headers) {
+            if (multipart && header[0].equalsIgnoreCase("Content-Type")) {
+                contentType = header[1]; // vai junto com o boundary, abaixo
+                continue;
+            }
+            builder.header(header[0], header[1]);
+            names.add(header[0].toLowerCase(Locale.ROOT));
+        }
+        // Se o usuário pediu outra codificação, respeita; o que não soubermos abrir fica como veio
+        if (!names.contains("accept-encoding")) {
+            builder.header("Accept-Encoding", ACCEPT_ENCODING);
+        }
+
+        if (noBody) {
             builder.method(method, HttpRequest.BodyPublishers.noBody());
         } else {
-            if (bodyType.equals("Raw")) {
-                builder.header("Content-Type", "application/json");
-                builder.method(method, HttpRequest.BodyPublishers.ofString(rawBody));
+            HttpRequest.BodyPublisher body;
+            if (rendered.bodyType.equals("Raw")) {
+                if (!names.contains("content-type")) {
+                    builder.header("Content-Type", "application/json");
+                }
+                body = HttpRequest.BodyPublishers.ofString(rendered.rawBody);
             } else {
-                String boundary = "---JavaBoundary" + System.currentTimeMillis();
-                builder.header("Content-Type", "multipart/form-data; boundary=" + boundary);
-                byte[] multipartBody = buildMultipartBody(fields, boundary);
-                builder.method(method, HttpRequest.BodyPublishers.ofByteArray(multipartBody));
+                // O Content-Type do usuário também vale aqui; sem boundary (o curl -H 'Content-Type:
+                // multipart/form-data' -F ...), o nosso é acrescentado
+                String boundary = contentType == null ? null : parameter(contentType, "boundary");
+                if (boundary == null) {
+                    boundary = "---JavaBoundary" + System.currentTimeMillis();
+                    contentType = (contentType == null ? "multipart/form-data" : contentType.strip())
+                            + "; boundary=" + boundary;
+                }
+                builder.header("Content-Type", contentType);
+                body = MultipartBodyPublisher.of(rendered.fields, boundary, upload);
+            }
+            if (compressRequests && !names.contains("content-encoding")
+                    && (body.contentLength() < 0 || body.contentLength() >= COMPRESS_MIN_BYTES)) {
+                builder.header("Content-Encoding", "gzip");
+                body = new GzipBodyPublisher(body, Deflater.DEFAULT_COMPRESSION);
             }
+            builder.method(method, body);
         }
-
-        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-        return formatResponse(response);
+        return builder.build();
     }
 
-    private byte[] buildMultipartBody(List<FormField> fields, String boundary) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        for (FormField field : fields) {
-            baos.write(("--" + boundary + "\r\n").getBytes());
-            if (field.isFile) {
-                Path filePath = Paths.get(field.value);
-                String fileName = filePath.getFileName().toString();
-                baos.write(("Content-Disposition: form-data; name=\"" + field.name + "\"; filename=\"" + fileName
-                        + "\"\r\n").getBytes());
-                baos.write(("Content-Type: application/octet-stream\r\n\r\n").getBytes());
-                Files.copy(filePath, baos);
-                baos.write("\r\n".getBytes());
-            } else {
-                baos.write(("Content-Disposition: form-data; name=\"" + field.name + "\"\r\n\r\n").getBytes());
-                baos.write(field.value.getBytes());
-                baos.write("\r\n".getBytes());
+    // Valor de um parâmetro de header ("; boundary=abc"), sem aspas, ou null
+    static String parameter(String headerValue, String name) {
+        for (String param : headerValue.split(";")) {
+            String[] kv = param.strip().split("=", 2);
+            if (kv.length == 2 && kv[0].strip().equalsIgnoreCase(name)) {
+                return kv[1].strip().replace("\"", "");
             }
         }
-        baos.write(("--" + boundary + "--\r\n").getBytes());
-        return baos.toByteArray();
+        return null;
+    }
+
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    public void setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    static String formatHead(HttpResponse<?> response) {
+        return formatHead(response.statusCode(), response.headers().map());
     }
 
-    private String formatResponse(HttpResponse<String> response) {
+    static String formatHead(int status, Map<String, List<String>> headers) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Status: ").append(response.statusCode()).append("\n");
+        sb.append("Status: ").append(status).append("\n");
         sb.append("Headers:\n");
-        response.headers().map()
-                .forEach((k, v) -> sb.append(" ").append(k).append(": ").append(String.join(", ", v)).append("\n"));
-        var body = response.body();
-        if (body != null && (body.trim().startsWith("{") || body.trim().startsWith("["))) {
-            body = prettyPrintJson(body);
+        headers.forEach((k, v) -> sb.append(" ").append(k).append(": ").append(String.join(", ", v)).append("\n"));
+        return sb.toString();
+    }
+
+    String formatResponse(HttpResponse<ResponseBody> response) {
+        ClientEvents.Format event = new ClientEvents.Format();
+        event.begin();
+        StringBuilder sb = new StringBuilder(formatHead(response));
+        ResponseBody responseBody = response.body();
+        sb.append("\nBody:\n");
+        boolean truncated;
+        if (isJson(responseBody)) {
+            // formata direto do corpo (memória ou arquivo) numa passada, parando no limite de exibição
+            try (Reader reader = new InputStreamReader(responseBody.openStream(), responseBody.charset())) {
+                truncated = !JsonPrettyPrinter.format(reader, sb, sb.length() + DISPLAY_LIMIT);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            truncated = responseBody.size() > DISPLAY_LIMIT;
+            sb.append(responseBody.text(DISPLAY_LIMIT));
         }
-        sb.append("\nBody:\n").append(body);
         sb.append("\n");
+        if (truncated) {
+            sb.append("\n... showing the first ").append(TransferListener.humanBytes(DISPLAY_LIMIT)).append(" of a ")
+                    .append(TransferListener.humanBytes(responseBody.size()))
+                    .append(" body, use Save Body to keep the full response\n");
+        }
+        event.kind = "response";
+        event.bytesIn = responseBody.size();
+        event.charsOut = sb.length();
+        event.commit();
         return sb.toString();
     }
 
-    public void saveFullHistory(String method, String url, String headers, String bodyType, String rawBody,
-            List<FormField> fields) {
-        try (FileWriter fw = new FileWriter(HISTORY_FILE, true)) {
-            var serializedHeaders = headers.replace("\n", "\\n");
-            var serializedBody = rawBody.replace("\n", "\\n");
-            fw.write(method + "@@" + url + "@@" + (serializedHeaders.length() > 0 ? serializedHeaders : " ") + "@@"
-                    + bodyType + "@@"
-                    + (serializedBody.length() > 0 ? serializedBody : " ") + "@@");
-            for (FormField f : fields) {
-                fw.write(f.name + "," + f.value.replace("\n", "\\n") + "," + f.isFile + ";");
+    // Não espera o disco: a posição chega quando a thread de escrita gravar o lote
+    public CompletableFuture<Integer> saveFullHistory(String method, String url, String headers, String bodyType,
+            String rawBody, List<FormField> fields) {
+        HistoryEntry entry = new HistoryEntry(method, url, headers, bodyType, rawBody, new ArrayList<>(fields));
+        return history().append(entry).whenCompleteAsync((position, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                return;
             }
-            fw.write("\n");
-        } catch (IOException e) {
-            e.printStackTrace();
+            try {
+                search().add(position, entry);
+                scheduleSearchSave();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, executor);
+    }
+
+    // positions lidas na geração generation do histórico; todas são apagadas sob um único lock do store e a
+    // compactação só é agendada no fim
+    public void deleteHistory(int[] positions, long generation) throws IOException {
+        HistoryStore history = history();
+        int[] current;
+        long now;
+        synchronized (history) {
+            current = history.delete(positions, generation);
+            now = history.generation();
         }
+        search().remove(current, now);
+        scheduleCompaction();
     }
 
-    public List<String> loadHistory() {
-        try {
-            return Files.readAllLines(Paths.get(HISTORY_FILE));
-        } catch (IOException e) {
-            return new ArrayList<>();
+    // null quando a consulta não tem termos (mostrar todo o histórico)
+    public int[] searchHistory(String query) {
+        return search().search(query);
+    }
+
+    // Vários deletes seguidos geram uma única compactação em segundo plano
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                compactionScheduled.set(false);
+                try {
+                    history().compact();
+                    scheduleSearchSave();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
         }
     }
 
+    private void scheduleSearchSave() {
+        if (searchSaveScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(SEARCH_SAVE_DELAY_MS);
+                    searchSaveScheduled.set(false);
+                    search().save();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    public synchronized HistoryStore history() {
+        openHistory();
+        return history;
+    }
+
     public String generateCurl(String method, String url, String headers, String bodyType, String rawBody,
             List<FormField> fields) {
-        StringBuilder curl = new StringBuilder("curl -X ").append(method).append(" \"").append(url).append("\"");
+        // -X HEAD faria o curl esperar por um corpo que nunca vem
+        StringBuilder curl = new StringBuilder(method.equals("HEAD") ? "curl -I" : "curl -X " + method).append(" ")
+                .append(CurlParser.quote(url));
 
         // Adicionar headers
-        for (String line : headers.split("\n")) {
-            if (line.contains(":")) {
-                curl.append(" -H \"").append(line.trim()).append("\"");
-            }
+        for (String[] header : parseHeaders(headers)) {
+            curl.append(" -H ").append(CurlParser.quote(header[0] + ": " + header[1]));
         }
 
         // Adicionar corpo
-        if (!method.equals("GET") && !method.equals("DELETE")) {
+        if (!NO_BODY_METHODS.contains(method)) {
             if (bodyType.equals("Raw") && rawBody != null && !rawBody.isEmpty()) {
-                curl.append(" -d '").append(rawBody.replace("'", "\\'")).append("'");
+                curl.append(" --data-raw ").append(CurlParser.quote(rawBody));
             } else if (bodyType.equals("Form-Data")) {
                 for (FormField f : fields) {
                     if (f.isFile) {
-                        curl.append(" -F \"").append(f.name).append("=@").append(f.value).append("\"");
+                        curl.append(" -F ").append(CurlParser.quote(f.name + "=@" + f.value));
                     } else {
-                        curl.append(" -F \"").append(f.name).append("=").append(f.value).append("\"");
+                        curl.append(" --form-string ").append(CurlParser.quote(f.name + "=" + f.value));
                     }
                 }
             }
@@ -175,113 +584,163 @@ public class HttpClientService {
     }
 
     public ParsedCurl parseCurl(String curlCommand) {
-        ParsedCurl parsed = new ParsedCurl();
-        parsed.method = "GET"; // default
-
-        // Regex para capturar -X, -H, -d e URL
-        Pattern pattern = Pattern
-                .compile("(-X\\s+\\w+)|(-H\\s+\"?[^\"]+\"?)|(-d\\s+'[^']+'|--data\\s+'[^']+')|(https?://\\S+)");
-        Matcher matcher = pattern.matcher(curlCommand);
-
-        while (matcher.find()) {
-            Object match = matcher.group().trim();
+        return CurlParser.parse(curlCommand);
+    }
 
-            switch (match) {
-                case String it when it.startsWith("-X") -> {
-                    parsed.method = it.replace("-X", "").trim();
-                }
-                case String it when it.startsWith("-H") -> {
-                    String header = clean(it.replace("-H", "").trim());
-                    String[] parts = header.split(":", 2);
-                    if (parts.length == 2) {
-                        parsed.headers.add(parts[0].trim() + ":" + parts[1].trim());
-                    }
-                }
-                case String it when it.startsWith("-d") || it.startsWith("--data") -> {
-                    parsed.body = clean(it.replaceFirst("-d|--data", "").trim());
-                }
-                case String it when it.startsWith("http") -> {
-                    parsed.url = clean(it);
-                }
-                default -> {
-                    // Ignora desconhecidos
+    // Importa para o histórico todos os comandos curl de um arquivo ou pasta (ex.: "Copy all as cURL" de um
+    // HAR). Arquivos são lidos e os comandos interpretados em paralelo; a gravação segue a ordem dos arquivos.
+    public ImportReport importCurl(Path source) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> walk = Files.walk(source)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+        } else {
+            files = List.of(source);
+        }
+        List<CurlCommand> commands = files.parallelStream().flatMap(file -> {
+            try {
+                List<List<String>> tokens = CurlParser.commands(new String(Files.readAllBytes(file),
+                        StandardCharsets.UTF_8));
+                return IntStream.range(0, tokens.size())
+                        .mapToObj(i -> new CurlCommand(file, i + 1, tokens.get(i)))
+                        .filter(command -> CurlParser.isCurl(command.tokens)); // ignora jq, echo...
+            } catch (IOException | RuntimeException e) {
+                CurlCommand failed = new CurlCommand(file, 0, null);
+                failed.error = e.getMessage();
+                return Stream.of(failed);
+            }
+        }).toList();
+        commands.parallelStream().forEach(CurlCommand::parse);
+
+        HistoryStore store = history();
+        int sizeBefore = store.size();
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> added = new ArrayList<>();
+        List<HistoryEntry> addedEntries = new ArrayList<>();
+        ImportReport report = new ImportReport();
+        // Tudo entra na fila de uma vez e é gravado em lotes
+        List<CompletableFuture<Integer>> positions = new ArrayList<>();
+        for (CurlCommand command : commands) {
+            positions.add(command.entry == null ? null : store.append(command.entry));
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            CurlCommand command = commands.get(i);
+            if (command.entry == null) {
+                report.failures.add(command.file + (command.number > 0 ? " command " + command.number : "") + ": "
+                        + command.error);
+                continue;
+            }
+            int position;
+            try {
+                position = positions.get(i).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+            if (position >= sizeBefore && seen.add(position)) {
+                report.imported++;
+                added.add(position);
+                addedEntries.add(command.entry);
+            } else {
+                report.duplicates++;
+            }
+        }
+        HistorySearchIndex index = search();
+        executor.execute(() -> {
+            try {
+                for (int i = 0; i < added.size(); i++) {
+                    index.add(added.get(i), addedEntries.get(i));
                 }
+                scheduleSearchSave();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        });
+        return report;
+    }
 
+    // Olha só o primeiro caractere não branco, sem decodificar o corpo inteiro
+    static boolean isJson(ResponseBody body) {
+        String head = body.text(256);
+        for (int i = 0; i < head.length(); i++) {
+            char c = head.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[';
+            }
         }
-        return parsed;
+        return false;
     }
 
-    private static String clean(String value) {
-        return value.replaceAll("^['\"]|['\"]$", ""); // remove aspas simples ou duplas no início/fim
+    static String prettyPrintJson(String json) {
+        return JsonPrettyPrinter.format(json);
     }
 
-    private static String prettyPrintJson(String json) {
-        StringBuilder pretty = new StringBuilder();
-        int indent = 0;
-        boolean inQuotes = false;
-        boolean escape = false;
-
-        for (char c : json.toCharArray()) {
-            switch (c) {
-                case '"' -> {
-                    pretty.append(c);
-                    if (!escape) {
-                        inQuotes = !inQuotes;
-                    }
-                    escape = false;
-                }
-                case '\\' -> {
-                    pretty.append(c);
-                    escape = true; // próximo caractere é escapado
-                }
-                case '{', '[' -> {
-                    pretty.append(c);
-                    if (!inQuotes) {
-                        pretty.append("\n");
-                        indent++;
-                        pretty.append("  ".repeat(indent));
-                    }
-                    escape = false;
-                }
-                case '}', ']' -> {
-                    if (!inQuotes) {
-                        pretty.append("\n");
-                        indent--;
-                        pretty.append("  ".repeat(indent));
-                    }
-                    pretty.append(c);
-                    escape = false;
-                }
-                case ',' -> {
-                    pretty.append(c);
-                    if (!inQuotes) {
-                        pretty.append("\n");
-                        pretty.append("  ".repeat(indent));
-                    }
-                    escape = false;
-                }
-                case ':' -> {
-                    pretty.append(c);
-                    if (!inQuotes) {
-                        pretty.append(" ");
-                    }
-                    escape = false;
-                }
-                default -> {
-                    pretty.append(c);
-                    escape = false;
-                }
-            }
+    // O corpo não é formatado aqui: quem exibe decide quanto ler (ver ResponseViewer)
+    public static class HttpResult {
+        int status;
+        String head;
+        ResponseBody body;
+        RequestTiming timing;
+        String cacheStatus; // CACHE_HIT, CACHE_REVALIDATED, CACHE_MISS ou null com o cache desligado
+
+        public HttpResult(int status, String head, ResponseBody body, RequestTiming timing, String cacheStatus) {
+            this.status = status;
+            this.head = head;
+            this.body = body;
+            this.timing = timing;
+            this.cacheStatus = cacheStatus;
         }
-        return pretty.toString();
     }
 
     public static class ParsedCurl {
-        String method;
+        String method = "GET";
         String url;
         List<String> headers = new ArrayList<>();
         String body;
+        List<FormField> fields = new ArrayList<>();
+        List<String> warnings = new ArrayList<>(); // opções ignoradas
+
+        public HistoryEntry toEntry() {
+            return new HistoryEntry(method, url, String.join("\n", headers), fields.isEmpty() ? "Raw" : "Form-Data",
+                    body != null ? body : "", fields);
+        }
+    }
+
+    private static class CurlCommand {
+        final Path file;
+        final int number;
+        final List<String> tokens;
+        HistoryEntry entry;
+        String error;
+
+        CurlCommand(Path file, int number, List<String> tokens) {
+            this.file = file;
+            this.number = number;
+            this.tokens = tokens;
+        }
+
+        void parse() {
+            if (tokens == null) {
+                return;
+            }
+            try {
+                entry = CurlParser.parse(tokens, file.toAbsolutePath().getParent()).toEntry();
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+            }
+        }
+    }
+
+    public static class ImportReport {
+        int imported;
+        int duplicates;
+        List<String> failures = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            return "Imported " + imported + " request(s), " + duplicates + " already in history, " + failures.size()
+                    + " failed";
+        }
     }
 
     public static class FormField {
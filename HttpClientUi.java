@@ -1,6 +1,10 @@
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
 import javax.swing.table.DefaultTableModel;
 
 import java.awt.*;
@@ -9,20 +13,55 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 public class HttpClientUi extends JFrame {
 
+    private static final String COLLECTIONS_DIR = "collections";
+    private static final int COLLECTION_PARALLELISM = 8;
+    private static final String NO_ENVIRONMENT = "No environment";
+
     private JComboBox<String> methodBox;
     private JTextField urlField;
     private JTextArea headersArea;
     private JComboBox<String> bodyTypeBox;
     private JTextArea rawBodyArea;
     private JTable formTable;
-    private JTextArea responseArea;
-    private DefaultListModel<String> historyModel;
+    private ResponseViewer responseArea;
+    private JTextArea timingArea;
+    private RequestTiming lastTiming;
+    private HistoryListModel historyModel;
+    private JTextField historyFilter;
+    private int filterGeneration;
+    private JSpinner timeoutSpinner;
+    private JLabel statusLabel;
+    private JLabel progressLabel;
+    private JLabel cacheLabel;
+    private JButton saveBodyButton;
+    private JButton captureButton;
+    private JButton runDataButton;
+    private boolean dataRunning;
+    private volatile boolean dataRunStopped;
+    private final Set<CompletableFuture<HttpClientService.HttpResult>> dataRunSends = ConcurrentHashMap.newKeySet();
+    private ResponseBody lastBody;
+    private final List<CompletableFuture<HttpClientService.HttpResult>> inFlight = new ArrayList<>();
 
     private HttpClientService service = new HttpClientService();
 
@@ -31,27 +70,74 @@ public class HttpClientUi extends JFrame {
         setSize(1200, 700);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
+        try {
+            service.profiles().writeDefaults(); // profiles.properties de exemplo para editar
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
         // Top bar
         JPanel topPanel = new JPanel(new BorderLayout(10, 10));
         topPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        methodBox = new JComboBox<>(new String[] { "GET", "POST", "PUT", "DELETE" });
+        methodBox = new JComboBox<>(new String[] { "GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS" });
+        methodBox.setEditable(true); // outros métodos (PURGE, PROPFIND...) podem ser digitados
         urlField = new JTextField();
         JButton sendButton = new JButton("Send");
         JButton curlButton = new JButton("Show Curl");
+        JButton loadTestButton = new JButton("Load Test");
+        JButton warmUpButton = new JButton("Warm Up");
+        JButton streamButton = new JButton("Stream");
+        streamButton.setToolTipText("Open as a stream: Server-Sent Events, line-by-line HTTP, or WebSocket (ws://)");
+        runDataButton = new JButton("Run Data...");
+        runDataButton.setToolTipText("Send this request once per row of a CSV or JSONL file, filling {{column}}");
+        warmUpButton.setToolTipText("Open connections to the URL's host ahead of the first request");
+        JCheckBox cacheBox = new JCheckBox("Cache");
+        cacheBox.setToolTipText("Reuse cached GET responses, revalidating with ETag / Last-Modified");
+        JComboBox<String> profileBox = new JComboBox<>(service.profiles().names().toArray(String[]::new));
+        profileBox.setSelectedItem(service.profile());
+        profileBox.setToolTipText("Client profile, edit profiles.properties to change (reloaded when the list opens)");
+        JComboBox<String> environmentBox = new JComboBox<>();
+        environmentBox.addItem(NO_ENVIRONMENT);
+        service.environments().names().forEach(environmentBox::addItem);
+        environmentBox.setToolTipText("Variables for {{name}} in the request, edit environments.properties to change");
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
         sendButton.setBackground(new Color(0, 123, 255));
         sendButton.setForeground(Color.WHITE);
+        timeoutSpinner = new JSpinner(new SpinnerNumberModel(30, 1, 3600, 1));
+        timeoutSpinner.setToolTipText("Timeout (s)");
+        statusLabel = new JLabel(" ");
 
         JPanel leftTop = new JPanel(new BorderLayout(5, 5));
         JPanel rightTop = new JPanel(new BorderLayout(5, 5));
         leftTop.add(methodBox, BorderLayout.WEST);
         leftTop.add(urlField, BorderLayout.CENTER);
         topPanel.add(leftTop, BorderLayout.CENTER);
-        rightTop.add(sendButton, BorderLayout.EAST);
-        rightTop.add(curlButton, BorderLayout.WEST);
+        JPanel sendPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        sendPanel.add(cacheBox);
+        sendPanel.add(environmentBox);
+        sendPanel.add(profileBox);
+        sendPanel.add(new JLabel("Timeout (s)"));
+        sendPanel.add(timeoutSpinner);
+        sendPanel.add(cancelButton);
+        sendPanel.add(sendButton);
+        rightTop.add(sendPanel, BorderLayout.EAST);
+        JPanel toolsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        toolsPanel.add(curlButton);
+        toolsPanel.add(loadTestButton);
+        toolsPanel.add(warmUpButton);
+        toolsPanel.add(streamButton);
+        toolsPanel.add(runDataButton);
+        rightTop.add(toolsPanel, BorderLayout.WEST);
+        rightTop.add(statusLabel, BorderLayout.SOUTH);
         topPanel.add(rightTop, BorderLayout.EAST);
         JButton importCurlButton = new JButton("Import CURL");
-        topPanel.add(importCurlButton, BorderLayout.WEST);
+        JButton importCurlFileButton = new JButton("Import File...");
+        importCurlFileButton.setToolTipText("Import every curl command of a file or folder into the history");
+        JPanel importPanel = new JPanel(new GridLayout(2, 1, 0, 5));
+        importPanel.add(importCurlButton);
+        importPanel.add(importCurlFileButton);
+        topPanel.add(importPanel, BorderLayout.WEST);
 
         add(topPanel, BorderLayout.NORTH);
 
@@ -65,7 +151,13 @@ public class HttpClientUi extends JFrame {
         bodyTypeBox = new JComboBox<>(new String[] { "Raw", "Form-Data" });
         rawBodyArea = new JTextArea(10, 30);
         rawBodyArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        bodyPanel.add(bodyTypeBox, BorderLayout.NORTH);
+        JCheckBox gzipBox = new JCheckBox("Gzip body");
+        gzipBox.setToolTipText("Compress request bodies larger than 1 KB (sends Content-Encoding: gzip)");
+        gzipBox.addActionListener(e -> service.setCompressRequests(gzipBox.isSelected()));
+        JPanel bodyTypePanel = new JPanel(new BorderLayout(5, 5));
+        bodyTypePanel.add(bodyTypeBox, BorderLayout.CENTER);
+        bodyTypePanel.add(gzipBox, BorderLayout.EAST);
+        bodyPanel.add(bodyTypePanel, BorderLayout.NORTH);
         bodyPanel.add(new JScrollPane(rawBodyArea), BorderLayout.CENTER);
 
         DefaultTableModel tableModel = new DefaultTableModel(new Object[] { "Name", "Value", "Is File" }, 0);
@@ -84,21 +176,73 @@ public class HttpClientUi extends JFrame {
         requestTabs.addTab("Body", bodyPanel);
         requestTabs.addTab("Form-Data", formPanel);
 
-        responseArea = new JTextArea();
-        responseArea.setEditable(false);
-        responseArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        responseArea = new ResponseViewer();
+
+        JPanel responsePanel = new JPanel(new BorderLayout(5, 5));
+        JPanel responseBar = new JPanel(new BorderLayout(5, 5));
+        progressLabel = new JLabel(" ");
+        cacheLabel = new JLabel(" ");
+        saveBodyButton = new JButton("Save Body");
+        saveBodyButton.setEnabled(false);
+        captureButton = new JButton("Capture...");
+        captureButton.setToolTipText("Store a value of this response (JSONPath) as {{variable}} for the next requests");
+        captureButton.setEnabled(false);
+        JPanel bodyButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        bodyButtons.add(captureButton);
+        bodyButtons.add(saveBodyButton);
+        responseBar.add(cacheLabel, BorderLayout.WEST);
+        responseBar.add(progressLabel, BorderLayout.CENTER);
+        responseBar.add(bodyButtons, BorderLayout.EAST);
+        responsePanel.add(responseBar, BorderLayout.NORTH);
+        timingArea = new JTextArea();
+        timingArea.setEditable(false);
+        timingArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        JTabbedPane responseTabs = new JTabbedPane();
+        responseTabs.addTab("Response", responseArea);
+        responseTabs.addTab("Timing", new JScrollPane(timingArea));
+        responsePanel.add(responseTabs, BorderLayout.CENTER);
+        responseArea.setFormatListener(nanos -> {
+            if (lastTiming != null) {
+                lastTiming.formatNanos = nanos;
+                timingArea.setText(lastTiming.toString());
+            }
+        });
 
-        JSplitPane centerSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, requestTabs,
-                new JScrollPane(responseArea));
+        JSplitPane centerSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, requestTabs, responsePanel);
         centerSplit.setDividerLocation(500);
         add(centerSplit, BorderLayout.CENTER);
 
-        historyModel = new DefaultListModel<>();
-        JList<String> historyList = new JList<>(historyModel);
+        historyModel = new HistoryListModel(service.history());
+        JList<HistoryStore.Summary> historyList = new JList<>(historyModel);
+        historyList.setPrototypeCellValue(new HistoryStore.Summary(-1, 0, "DELETE", "https://example.com/"));
         JScrollPane historyScroll = new JScrollPane(historyList);
-        historyScroll.setBorder(new TitledBorder("History"));
-        add(historyScroll, BorderLayout.SOUTH);
-        loadHistory();
+        historyFilter = new JTextField();
+        historyFilter.setToolTipText("Filter history (url, host, headers, body)");
+        JPanel historyPanel = new JPanel(new BorderLayout(5, 5));
+        historyPanel.setBorder(new TitledBorder("History"));
+        historyPanel.add(historyFilter, BorderLayout.NORTH);
+        historyPanel.add(historyScroll, BorderLayout.CENTER);
+        add(historyPanel, BorderLayout.SOUTH);
+
+        // Busca enquanto digita, com um pequeno atraso para não consultar a cada tecla
+        Timer filterTimer = new Timer(150, e -> filterHistory());
+        filterTimer.setRepeats(false);
+        historyFilter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+        });
 
         // Actions
         addFieldBtn.addActionListener(e -> tableModel.addRow(new Object[] { "", "", false }));
@@ -119,41 +263,152 @@ public class HttpClientUi extends JFrame {
         });
 
         sendButton.addActionListener(e -> {
-            String method = (String) methodBox.getSelectedItem();
+            String method = method();
             String url = urlField.getText().trim();
             String headers = headersArea.getText();
             String bodyType = (String) bodyTypeBox.getSelectedItem();
             String rawBody = rawBodyArea.getText();
-            List<HttpClientService.FormField> fields = new ArrayList<>();
-            for (int i = 0; i < tableModel.getRowCount(); i++) {
-                fields.add(new HttpClientService.FormField(
-                        tableModel.getValueAt(i, 0).toString(),
-                        tableModel.getValueAt(i, 1).toString(),
-                        Boolean.parseBoolean(tableModel.getValueAt(i, 2).toString())));
+            List<HttpClientService.FormField> fields = formFields(tableModel);
+            Duration timeout = Duration.ofSeconds(((Number) timeoutSpinner.getValue()).longValue());
+            TransferListener upload = (transferred, total, elapsedNanos) -> SwingUtilities.invokeLater(
+                    () -> progressLabel.setText("Uploading " + TransferListener.describe(transferred, total,
+                            elapsedNanos)));
+            TransferListener progress = (transferred, total, elapsedNanos) -> SwingUtilities.invokeLater(
+                    () -> progressLabel.setText(TransferListener.describe(transferred, total, elapsedNanos)));
+            CompletableFuture<HttpClientService.HttpResult> request = service.sendHttpRequestAsync(method, url,
+                    headers, bodyType, rawBody, fields, timeout, upload, progress);
+            inFlight.add(request);
+            updateStatus();
+            cancelButton.setEnabled(true);
+            request.whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+                inFlight.remove(request);
+                updateStatus();
+                cancelButton.setEnabled(!inFlight.isEmpty());
+                if (error == null) {
+                    lastTiming = response.timing;
+                    cacheLabel.setText(response.cacheStatus == null ? " " : "Cache: " + response.cacheStatus);
+                    responseArea.show(response.head, response.body);
+                    if (lastBody != null) {
+                        lastBody.discard();
+                    }
+                    lastBody = response.body;
+                    saveBodyButton.setEnabled(true);
+                    captureButton.setEnabled(HttpClientService.isJson(response.body));
+                    long historyStart = System.nanoTime();
+                    RequestTiming timing = response.timing;
+                    service.saveFullHistory(method, url, headers, bodyType, rawBody, fields)
+                            .thenAccept(position -> {
+                                // Até a thread de escrita gravar o lote, não só até entrar na fila
+                                timing.historyNanos = System.nanoTime() - historyStart;
+                                SwingUtilities.invokeLater(() -> {
+                                    historyModel.entryAppended(position);
+                                    if (!historyFilter.getText().isBlank()) {
+                                        filterHistory();
+                                    }
+                                    if (lastTiming == timing) {
+                                        timingArea.setText(timing.toString());
+                                    }
+                                });
+                            });
+                    timingArea.setText(timing.toString());
+                } else if (error instanceof CancellationException) {
+                    responseArea.setText("Cancelled: " + method + " " + url);
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    responseArea.setText("Error: " + cause.getMessage());
+                }
+            }));
+        });
+
+        profileBox.addActionListener(e -> service.setProfile((String) profileBox.getSelectedItem()));
+        profileBox.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                try {
+                    if (service.reloadProfiles()) {
+                        profileBox.setModel(new DefaultComboBoxModel<>(service.profiles().names()
+                                .toArray(String[]::new)));
+                        profileBox.setSelectedItem(service.profile());
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    statusLabel.setText("Profiles not reloaded: " + ex.getMessage());
+                }
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+        environmentBox.addActionListener(e -> {
+            String selected = (String) environmentBox.getSelectedItem();
+            service.setEnvironment(NO_ENVIRONMENT.equals(selected) ? null : selected);
+        });
+        runDataButton.addActionListener(e -> {
+            if (dataRunning) {
+                stopDataRun();
+            } else {
+                runData(new HistoryEntry(method(), urlField.getText().trim(), headersArea.getText(),
+                        (String) bodyTypeBox.getSelectedItem(), rawBodyArea.getText(), formFields(tableModel)));
+            }
+        });
+        cacheBox.addActionListener(e -> service.setCacheEnabled(cacheBox.isSelected()));
+
+        warmUpButton.addActionListener(e -> {
+            String url = urlField.getText().trim();
+            if (url.isEmpty()) {
+                return;
             }
+            progressLabel.setText("Warming up " + url + "...");
             try {
-                String response = service.sendHttpRequest(method, url, headers, bodyType, rawBody, fields);
-                responseArea.setText(response);
-                service.saveFullHistory(method, url, headers, bodyType, rawBody, fields);
-                loadHistory();
-            } catch (Exception ex) {
-                responseArea.setText("Error: " + ex.getMessage());
+                service.warmUp(url).whenComplete((message, error) -> SwingUtilities.invokeLater(() -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    progressLabel.setText(error == null ? message : "Warm up failed: " + cause.getMessage());
+                }));
+            } catch (IllegalArgumentException ex) {
+                progressLabel.setText("Warm up failed: " + ex.getMessage());
+            }
+        });
+
+        cancelButton.addActionListener(e -> {
+            for (CompletableFuture<HttpClientService.HttpResult> request : new ArrayList<>(inFlight)) {
+                request.cancel(true);
+            }
+        });
+
+        saveBodyButton.addActionListener(e -> {
+            ResponseBody body = lastBody;
+            JFileChooser chooser = new JFileChooser();
+            if (body != null && chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                var target = chooser.getSelectedFile().toPath();
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        body.saveTo(target);
+                        SwingUtilities.invokeLater(() -> progressLabel.setText("Saved "
+                                + TransferListener.humanBytes(body.size()) + " to " + target));
+                    } catch (IOException ex) {
+                        SwingUtilities.invokeLater(() -> progressLabel.setText("Error: " + ex.getMessage()));
+                    }
+                });
             }
         });
 
+        captureButton.addActionListener(e -> captureVariable());
+
         curlButton.addActionListener(e -> {
-            String method = (String) methodBox.getSelectedItem();
+            String method = method();
             String url = urlField.getText().trim();
             String headers = headersArea.getText();
             String bodyType = (String) bodyTypeBox.getSelectedItem();
             String rawBody = rawBodyArea.getText();
-            List<HttpClientService.FormField> fields = new ArrayList<>();
-            for (int i = 0; i < tableModel.getRowCount(); i++) {
-                fields.add(new HttpClientService.FormField(
-                        tableModel.getValueAt(i, 0).toString(),
-                        tableModel.getValueAt(i, 1).toString(),
-                        Boolean.parseBoolean(tableModel.getValueAt(i, 2).toString())));
-            }
+            List<HttpClientService.FormField> fields = formFields(tableModel);
             String curlCommand = service.generateCurl(method, url, headers, bodyType, rawBody, fields);
 
             JDialog dialog = new JDialog(this, "Generated CURL", true);
@@ -172,51 +427,116 @@ public class HttpClientUi extends JFrame {
             dialog.setVisible(true);
         });
 
+        loadTestButton.addActionListener(e -> {
+            String method = method();
+            String url = urlField.getText().trim();
+            String headers = headersArea.getText();
+            String bodyType = (String) bodyTypeBox.getSelectedItem();
+            String rawBody = rawBodyArea.getText();
+            List<HttpClientService.FormField> fields = formFields(tableModel);
+            new LoadTestDialog(this, method + " " + url,
+                    config -> service.newLoadTest(method, url, headers, bodyType, rawBody, fields, config))
+                    .setVisible(true);
+        });
+
+        streamButton.addActionListener(e -> {
+            String method = method();
+            String url = urlField.getText().trim();
+            String headers = headersArea.getText();
+            String bodyType = (String) bodyTypeBox.getSelectedItem();
+            String rawBody = rawBodyArea.getText();
+            List<HttpClientService.FormField> fields = formFields(tableModel);
+            Duration timeout = Duration.ofSeconds(((Number) timeoutSpinner.getValue()).longValue());
+            new StreamDialog(this, method + " " + url, (capacity, logFile) -> service.openEventStream(method, url,
+                    headers, bodyType, rawBody, fields, timeout, capacity, logFile)).setVisible(true);
+        });
+
+        Consumer<HistoryEntry> importMethod = selected -> {
+            methodBox.setSelectedItem(selected.method);
+            urlField.setText(selected.url);
+            headersArea.setText(selected.headers);
+            bodyTypeBox.setSelectedItem(selected.bodyType);
+            rawBodyArea.setText(selected.rawBody);
+
+            // Limpar tabela e preencher form-data
+            DefaultTableModel model = (DefaultTableModel) formTable.getModel();
+            model.setRowCount(0);
+            for (HttpClientService.FormField f : selected.fields) {
+                model.addRow(new Object[] { f.name, f.value, f.isFile });
+            }
+        };
+
         importCurlButton.addActionListener(e -> {
-            String curlCommand = JOptionPane.showInputDialog(this, "Paste CURL command:");
-            if (curlCommand != null && !curlCommand.isBlank()) {
-                HttpClientService.ParsedCurl parsed = service.parseCurl(curlCommand);
-                methodBox.setSelectedItem(parsed.method);
-                urlField.setText(parsed.url);
-                headersArea.setText(String.join("\n", parsed.headers));
-                rawBodyArea.setText(parsed.body != null ? parsed.body : "");
-                bodyTypeBox.setSelectedItem(parsed.body != null ? "Raw" : "Form-Data");
+            // Área de várias linhas: o campo do showInputDialog troca as quebras de linha (e as continuações \)
+            JTextArea curlArea = new JTextArea(12, 70);
+            curlArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+            int option = JOptionPane.showConfirmDialog(this, new JScrollPane(curlArea), "Paste CURL command",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            String curlCommand = curlArea.getText();
+            if (option == JOptionPane.OK_OPTION && !curlCommand.isBlank()) {
+                HttpClientService.ParsedCurl parsed;
+                try {
+                    parsed = service.parseCurl(curlCommand);
+                } catch (IllegalArgumentException ex) {
+                    progressLabel.setText("Import failed: " + ex.getMessage());
+                    return;
+                }
+                importMethod.accept(parsed.toEntry());
+                progressLabel.setText(parsed.warnings.isEmpty() ? " " : String.join(", ", parsed.warnings));
             }
         });
-        Consumer<String> importMethod = selected -> {
-            String[] parts = selected.split("@@");
-            if (parts.length >= 5) {
-                methodBox.setSelectedItem(parts[0]);
-                urlField.setText(parts[1]);
-                headersArea.setText(parts[2].replace("\\n", "\n").trim());
-                bodyTypeBox.setSelectedItem(parts[3]);
-                rawBodyArea.setText(parts[4].replace("\\n", "\n").trim());
-
-                // Limpar tabela e preencher form-data
-                DefaultTableModel model = (DefaultTableModel) formTable.getModel();
-                model.setRowCount(0);
-                if (parts.length == 6) {
-                    for (String f : parts[5].split(";")) {
-                        if (!f.isBlank()) {
-                            String[] fp = f.split(",", 3);
-                            model.addRow(new Object[] { fp[0], fp[1].replace("\\n", "\n"),
-                                    Boolean.parseBoolean(fp[2]) });
-                        }
-                    }
-                }
+
+        importCurlFileButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
             }
-        };
+            Path source = chooser.getSelectedFile().toPath();
+            progressLabel.setText("Importing " + source.getFileName() + "...");
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return service.importCurl(source);
+                } catch (IOException ex) {
+                    throw new CompletionException(ex);
+                }
+            }).whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    progressLabel.setText("Import failed: " + error.getCause().getMessage());
+                    return;
+                }
+                historyModel.reload();
+                if (!historyFilter.getText().isBlank()) {
+                    filterHistory();
+                }
+                progressLabel.setText(report.toString());
+                if (!report.failures.isEmpty()) {
+                    responseArea.setText(report + "\n\n" + String.join("\n", report.failures));
+                }
+            }));
+        });
 
         historyList.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
                 if (e.getClickCount() == 2) {
-                    String selected = historyList.getSelectedValue();
+                    HistoryStore.Summary selected = historyList.getSelectedValue();
                     if (selected != null) {
-                        importMethod.accept(selected);
+                        loadEntry(selected, importMethod);
                     }
                 }
             }
         });
+        JPopupMenu historyMenu = new JPopupMenu();
+        JMenuItem deleteHistoryItem = new JMenuItem("Delete");
+        deleteHistoryItem.addActionListener(e -> deleteHistory(historyList.getSelectedValuesList()));
+        historyMenu.add(deleteHistoryItem);
+        JMenuItem addToCollectionItem = new JMenuItem("Add to Collection...");
+        addToCollectionItem.addActionListener(e -> addToCollection(historyList.getSelectedValuesList()));
+        historyMenu.add(addToCollectionItem);
+        JMenuItem runCollectionItem = new JMenuItem("Run Collection...");
+        runCollectionItem.addActionListener(e -> runCollection());
+        historyMenu.add(runCollectionItem);
+        historyList.setComponentPopupMenu(historyMenu);
         historyList.addKeyListener(new KeyListener() {
 
             @Override
@@ -227,10 +547,12 @@ public class HttpClientUi extends JFrame {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyChar() == '\n') {
-                    String selected = historyList.getSelectedValue();
+                    HistoryStore.Summary selected = historyList.getSelectedValue();
                     if (selected != null) {
-                        importMethod.accept(selected);
+                        loadEntry(selected, importMethod);
                     }
+                } else if (e.getKeyCode() == KeyEvent.VK_DELETE) {
+                    deleteHistory(historyList.getSelectedValuesList());
                 }
             }
 
@@ -263,9 +585,267 @@ public class HttpClientUi extends JFrame {
 
     }
 
-    private void loadHistory() {
-        historyModel.clear();
-        historyModel.addAll(service.loadHistory());
+    private void updateStatus() {
+        statusLabel.setText(inFlight.isEmpty() ? " " : inFlight.size() + " request(s) in flight");
+    }
+
+    // Texto do editor: o item selecionado só é atualizado quando a edição é confirmada
+    private String method() {
+        return methodBox.getEditor().getItem().toString().strip().toUpperCase(Locale.ROOT);
+    }
+
+    private static List<HttpClientService.FormField> formFields(DefaultTableModel tableModel) {
+        List<HttpClientService.FormField> fields = new ArrayList<>();
+        for (int i = 0; i < tableModel.getRowCount(); i++) {
+            fields.add(new HttpClientService.FormField(
+                    tableModel.getValueAt(i, 0).toString(),
+                    tableModel.getValueAt(i, 1).toString(),
+                    Boolean.parseBoolean(tableModel.getValueAt(i, 2).toString())));
+        }
+        return fields;
+    }
+
+    private void filterHistory() {
+        String query = historyFilter.getText();
+        int generation = ++filterGeneration;
+        CompletableFuture.supplyAsync(() -> service.searchHistory(query))
+                .thenAccept(positions -> SwingUtilities.invokeLater(() -> {
+                    // Ignora respostas de consultas que já foram substituídas
+                    if (generation == filterGeneration) {
+                        historyModel.setFilter(positions);
+                    }
+                }));
+    }
+
+    private void addToCollection(List<HistoryStore.Summary> selected) {
+        if (selected.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(Path.of(COLLECTIONS_DIR));
+        } catch (IOException e) {
+            responseArea.setText("Error: " + e.getMessage());
+            return;
+        }
+        JFileChooser chooser = new JFileChooser(COLLECTIONS_DIR);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        try {
+            RequestCollection collection = Files.exists(file) ? RequestCollection.load(file) : new RequestCollection();
+            for (HistoryStore.Summary summary : selected) {
+                collection.addStep(service.history().read(summary.position, summary.generation));
+            }
+            collection.save(file);
+            progressLabel.setText(selected.size() + " request(s) added to " + file.getFileName());
+        } catch (IOException e) {
+            responseArea.setText("Error: " + e.getMessage());
+        }
+    }
+
+    private void runCollection() {
+        JFileChooser chooser = new JFileChooser(COLLECTIONS_DIR);
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        Duration timeout = Duration.ofSeconds(((Number) timeoutSpinner.getValue()).longValue());
+        Map<String, String> variables = service.variables(); // ambiente ativo + variáveis capturadas
+        progressLabel.setText("Running " + file.getFileName() + "...");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return new CollectionRunner(service, COLLECTION_PARALLELISM, timeout)
+                        .run(RequestCollection.load(file), variables).toString();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            progressLabel.setText(" ");
+            responseArea.setText(error == null ? report : "Error: " + error.getMessage());
+        }));
+    }
+
+    // Uma requisição por linha do arquivo, no máximo COLLECTION_PARALLELISM ao mesmo tempo; as linhas são
+    // lidas conforme os envios terminam, então o arquivo nunca é carregado inteiro
+    private void runData(HistoryEntry request) {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        Duration timeout = Duration.ofSeconds(((Number) timeoutSpinner.getValue()).longValue());
+        RequestTemplate template = RequestTemplate.compile(request);
+        Map<String, String> base = service.variables();
+        progressLabel.setText("Running " + file.getFileName() + "...");
+        dataRunning = true;
+        dataRunStopped = false;
+        runDataButton.setText("Stop Run");
+        // Thread própria: o laço fica bloqueado no semáforo durante toda a execução
+        CompletableFuture.supplyAsync(() -> {
+            Map<String, Integer> statuses = new TreeMap<>();
+            List<String> failures = new ArrayList<>();
+            Semaphore slots = new Semaphore(COLLECTION_PARALLELISM);
+            int sent = 0;
+            long start = System.nanoTime();
+            try (DataRows rows = DataRows.open(file.toString(), null)) {
+                while (!dataRunStopped && rows.hasNext()) {
+                    DataRows.Row row = rows.next();
+                    Map<String, String> values = new HashMap<>(base);
+                    if (row.values != null) {
+                        values.putAll(row.values);
+                    }
+                    RequestTemplate.Rendered rendered = row.error == null ? template.render(values) : null;
+                    if (rendered == null || !rendered.missing.isEmpty()) {
+                        synchronized (failures) {
+                            failed(statuses, failures, row.error != null ? row.error
+                                    : "line " + row.line + ": no value for " + String.join(", ", rendered.missing));
+                        }
+                        continue;
+                    }
+                    slots.acquire();
+                    if (dataRunStopped) {
+                        slots.release();
+                        break;
+                    }
+                    int count = ++sent;
+                    CompletableFuture<HttpClientService.HttpResult> send = service.sendAsync(rendered, timeout,
+                            null, null);
+                    dataRunSends.add(send);
+                    send.whenComplete((result, error) -> {
+                        dataRunSends.remove(send);
+                        synchronized (failures) {
+                            if (error instanceof CancellationException) {
+                                failed(statuses, failures, "line " + row.line + ": cancelled");
+                            } else if (error != null) {
+                                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                        ? error.getCause() : error;
+                                failed(statuses, failures, "line " + row.line + ": " + cause.getMessage());
+                            } else {
+                                result.body.discard();
+                                statuses.merge(String.valueOf(result.status), 1, Integer::sum);
+                            }
+                        }
+                        slots.release();
+                    });
+                    if (count % 50 == 0) {
+                        SwingUtilities.invokeLater(() -> progressLabel.setText(file.getFileName() + ": " + count
+                                + " request(s) sent..."));
+                    }
+                }
+                slots.acquire(COLLECTION_PARALLELISM);
+            } catch (IOException | UncheckedIOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            StringBuilder report = new StringBuilder(String.format("%d request(s) from %s in %.1f s%s%n%n", sent,
+                    file.getFileName(), (System.nanoTime() - start) / 1e9, dataRunStopped ? " (stopped)" : ""));
+            statuses.forEach((status, count) -> report.append(status).append(": ").append(count).append("\n"));
+            if (!failures.isEmpty()) {
+                report.append("\n").append(String.join("\n", failures)).append("\n");
+            }
+            return report.toString();
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "run-data");
+            thread.setDaemon(true);
+            thread.start();
+        }).whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            dataRunning = false;
+            runDataButton.setText("Run Data...");
+            progressLabel.setText(" ");
+            responseArea.setText(error == null ? report : "Error: " + error.getCause().getMessage());
+        }));
+    }
+
+    // Para de ler linhas e cancela os envios em andamento; o relatório parcial ainda é mostrado
+    private void stopDataRun() {
+        dataRunStopped = true;
+        progressLabel.setText("Stopping...");
+        dataRunSends.forEach(send -> send.cancel(true));
+    }
+
+    // Guarda só as primeiras mensagens: um arquivo com milhões de linhas ruins não pode encher a memória
+    private static void failed(Map<String, Integer> statuses, List<String> failures, String message) {
+        statuses.merge("failed", 1, Integer::sum);
+        if (failures.size() < 100) {
+            failures.add(message);
+        }
+    }
+
+    // Extrai um valor da última resposta (em streaming) e guarda como {{variável}} da sessão
+    private void captureVariable() {
+        ResponseBody body = lastBody;
+        if (body == null) {
+            return;
+        }
+        JTextField nameField = new JTextField(20);
+        JTextField pathField = new JTextField(responseArea.filterExpression().isEmpty() ? "$."
+                : responseArea.filterExpression(), 30);
+        JPanel panel = new JPanel(new GridLayout(2, 2, 5, 5));
+        panel.add(new JLabel("Variable"));
+        panel.add(nameField);
+        panel.add(new JLabel("JSONPath"));
+        panel.add(pathField);
+        if (JOptionPane.showConfirmDialog(this, panel, "Capture Variable", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION || nameField.getText().isBlank()) {
+            return;
+        }
+        String name = nameField.getText().strip();
+        String expression = pathField.getText().strip();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.capture(name, body, expression);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                progressLabel.setText("Capture failed: " + cause.getMessage());
+            } else if (value == null) {
+                progressLabel.setText("Nothing found for " + expression);
+            } else {
+                progressLabel.setText("{{" + name + "}} = " + (value.length() > 80 ? value.substring(0, 80) + "..."
+                        : value));
+            }
+        }));
+    }
+
+    // Uma chamada por geração (normalmente uma só): posições de gerações diferentes não podem ser misturadas
+    private void deleteHistory(List<HistoryStore.Summary> selected) {
+        Map<Long, List<HistoryStore.Summary>> byGeneration = new TreeMap<>();
+        for (HistoryStore.Summary summary : selected) {
+            byGeneration.computeIfAbsent(summary.generation, g -> new ArrayList<>()).add(summary);
+        }
+        for (Map.Entry<Long, List<HistoryStore.Summary>> group : byGeneration.entrySet()) {
+            try {
+                service.deleteHistory(group.getValue().stream().mapToInt(summary -> summary.position).toArray(),
+                        group.getKey());
+            } catch (IOException e) {
+                responseArea.setText("Error: " + e.getMessage());
+                return;
+            }
+        }
+        selected.forEach(summary -> historyModel.entryChanged(summary.position));
+    }
+
+    private void loadEntry(HistoryStore.Summary summary, Consumer<HistoryEntry> importMethod) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.history().read(summary.position, summary.generation);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((entry, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                importMethod.accept(entry);
+            } else {
+                responseArea.setText("Error: " + error.getMessage());
+            }
+        }));
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,746 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Subconjunto de JSONPath avaliado em streaming: $.a.b, $.a[0].b, $['a b'], $.items[*].id, $..id, $.*,
+// $.items[?(@.price > 10)].name, $[?(@.tags)]. O texto é lido uma vez, do início ao fim, sem montar árvore:
+// o que não pode conter resultado é pulado, e só os valores encontrados (e os elementos que um filtro
+// precisa testar, até MAX_FILTER_CHARS) viram String. Funciona igual sobre uma String ou um Reader de
+// centenas de MB.
+public class JsonPath {
+
+    private static final int MAX_SEGMENTS = 62;
+    // Elemento maior que isso não é testado pelo filtro (conta como não casado); a busca continua dentro dele
+    static final int MAX_FILTER_CHARS = 1024 * 1024;
+
+    private final String expression;
+    private final List<Segment> segments;
+    private final long matchState;
+
+    private JsonPath(String expression, List<Segment> segments) {
+        this.expression = expression;
+        this.segments = segments;
+        this.matchState = 1L << segments.size();
+    }
+
+    public static JsonPath compile(String expression) {
+        try {
+            return parse(expression);
+        } catch (IndexOutOfBoundsException e) {
+            // qualquer recorte fora da expressão é erro de sintaxe, não falha do programa
+            throw new IllegalArgumentException("Invalid JSON path: " + expression);
+        }
+    }
+
+    private static JsonPath parse(String expression) {
+        String path = expression.strip();
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with $: " + expression);
+        }
+        List<Segment> segments = new ArrayList<>();
+        int i = 1;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            boolean descendant = path.startsWith("..", i);
+            if (descendant) {
+                i += 2;
+                if (i < path.length() && path.charAt(i) == '[') {
+                    i = bracket(path, i, segments, expression);
+                    segments.get(segments.size() - 1).descendant = true;
+                    continue;
+                }
+            } else if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                i = bracket(path, i, segments, expression);
+                continue;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in " + expression);
+            }
+            int end = i;
+            while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                end++;
+            }
+            String name = path.substring(i, end);
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Missing name after '.' in " + expression);
+            }
+            Segment segment = name.equals("*") ? new Segment(Segment.WILDCARD) : new Segment(Segment.NAME);
+            segment.name = name;
+            segment.descendant = descendant;
+            segments.add(segment);
+            i = end;
+        }
+        if (segments.size() > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("JSON path is too long: " + expression);
+        }
+        return new JsonPath(expression, segments);
+    }
+
+    // [0], [*], ['nome'], ["nome"], [?(filtro)]
+    private static int bracket(String path, int i, List<Segment> segments, String expression) {
+        int end = closing(path, i);
+        if (end < 0) {
+            throw new IllegalArgumentException("Unclosed [ in " + expression);
+        }
+        String inner = path.substring(i + 1, end).strip();
+        Segment segment;
+        if (inner.equals("*")) {
+            segment = new Segment(Segment.WILDCARD);
+        } else if (inner.startsWith("'") || inner.startsWith("\"")) {
+            if (inner.length() < 2 || inner.charAt(inner.length() - 1) != inner.charAt(0)) {
+                throw new IllegalArgumentException("Unclosed quote in [" + inner + "] in " + expression);
+            }
+            segment = new Segment(Segment.NAME);
+            segment.name = inner.substring(1, inner.length() - 1);
+        } else if (inner.startsWith("?")) {
+            segment = new Segment(Segment.FILTER);
+            segment.filter = Filter.parse(inner.substring(1).strip(), expression);
+        } else {
+            segment = new Segment(Segment.INDEX);
+            try {
+                segment.index = Integer.parseInt(inner);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unsupported selector [" + inner + "] in " + expression);
+            }
+            if (segment.index < 0) {
+                // precisaria do array inteiro para saber onde ele termina
+                throw new IllegalArgumentException("Negative indexes are not supported: " + expression);
+            }
+        }
+        segments.add(segment);
+        return end + 1;
+    }
+
+    // ']' correspondente, pulando os que estão dentro de aspas ou de outro [...]
+    private static int closing(String path, int open) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = open; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    // Primeiro resultado: strings voltam sem aspas; objetos e arrays voltam como o JSON original.
+    // null se o caminho não existir. A leitura para no primeiro resultado.
+    public String extract(String json) {
+        String[] first = new String[1];
+        try {
+            evaluate(new Source(json), 1L, true, raw -> {
+                first[0] = raw;
+                return false;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // não acontece com String
+        }
+        return first[0] == null ? null : unquote(first[0]);
+    }
+
+    // Todos os resultados até limit, na ordem do texto (como em extract)
+    public List<String> extractAll(Reader reader, int limit) throws IOException {
+        List<String> values = new ArrayList<>();
+        evaluate(reader, raw -> {
+            values.add(unquote(raw));
+            return values.size() < limit;
+        });
+        return values;
+    }
+
+    // Entrega cada resultado como o JSON original (strings com aspas); sink devolve false para parar.
+    // Devolve quantos resultados foram entregues.
+    public long evaluate(Reader reader, Predicate<String> sink) throws IOException {
+        long[] count = new long[1];
+        evaluate(new Source(reader), 1L, true, raw -> {
+            count[0]++;
+            return sink.test(raw);
+        });
+        return count[0];
+    }
+
+    // Valor JSON como texto: strings sem aspas e com os escapes resolvidos, o resto como está
+    public static String unquote(String raw) {
+        if (raw.isEmpty() || raw.charAt(0) != '"') {
+            return raw;
+        }
+        try {
+            return new Source(raw).readString(new StringBuilder()).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Membros do objeto na raiz, na ordem do texto (valores como em extract)
+    public static Map<String, String> members(String json) {
+        Map<String, String> members = new LinkedHashMap<>();
+        try {
+            Source in = new Source(json);
+            in.skipWhitespace();
+            if (in.peek() != '{') {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            in.pos++;
+            StringBuilder key = new StringBuilder();
+            while (in.nextMember(key)) {
+                String name = key.toString();
+                members.put(name, unquote(in.capture()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return members;
+    }
+
+    // Percorre o valor na posição atual; states tem um bit por quantidade de segmentos já casados.
+    // Na raiz (root) a leitura para assim que nada mais pode casar, sem ler o resto do texto.
+    private boolean evaluate(Source in, long states, boolean root, Predicate<String> sink) throws IOException {
+        in.skipWhitespace();
+        if ((states & matchState) != 0) {
+            String raw = in.capture();
+            if (!sink.test(raw)) {
+                return false;
+            }
+            long deeper = states & ~matchState;
+            // Com "..", pode haver outro resultado dentro deste (ex.: $..id dentro de um objeto com id)
+            return deeper == 0 || !(raw.startsWith("{") || raw.startsWith("[")) || evaluate(new Source(raw), deeper,
+                    true, sink);
+        }
+        int c = in.peek();
+        if (c == '{') {
+            in.pos++;
+            StringBuilder key = in.key;
+            while (in.nextMember(key)) {
+                if (!child(in, states, key, -1, sink)) {
+                    return false;
+                }
+            }
+        } else if (c == '[') {
+            in.pos++;
+            int last = lastIndex(states);
+            for (int index = 0; in.nextElement(); index++) {
+                if (index > last) {
+                    // $.a[3] não precisa do resto do array
+                    if (root) {
+                        return true;
+                    }
+                    in.skipContainer(1);
+                    break;
+                }
+                if (!child(in, states, null, index, sink)) {
+                    return false;
+                }
+            }
+        } else {
+            in.skipValue();
+        }
+        return true;
+    }
+
+    // Maior índice que ainda pode casar num array; MAX_VALUE se algum estado aceita qualquer elemento
+    private int lastIndex(long states) {
+        int last = -1;
+        for (int i = 0; i < segments.size(); i++) {
+            if ((states & (1L << i)) != 0) {
+                Segment segment = segments.get(i);
+                if (segment.kind != Segment.INDEX || segment.descendant) {
+                    return Integer.MAX_VALUE;
+                }
+                last = Math.max(last, segment.index);
+            }
+        }
+        return last;
+    }
+
+    private boolean child(Source in, long states, CharSequence key, int index, Predicate<String> sink)
+            throws IOException {
+        long next = 0;
+        long filters = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+            Segment segment = segments.get(i);
+            if (segment.descendant) {
+                next |= 1L << i;
+            }
+            switch (segment.kind) {
+                case Segment.NAME -> {
+                    if (key != null && segment.name.contentEquals(key)) {
+                        next |= 1L << (i + 1);
+                    }
+                }
+                case Segment.INDEX -> {
+                    if (key == null && segment.index == index) {
+                        next |= 1L << (i + 1);
+                    }
+                }
+                case Segment.WILDCARD -> next |= 1L << (i + 1);
+                default -> filters |= 1L << i;
+            }
+        }
+        if (filters == 0) {
+            if (next == 0) {
+                in.skipValue();
+                return true;
+            }
+            return evaluate(in, next, false, sink);
+        }
+        // O filtro precisa ver o elemento inteiro: só ele vira String, e a busca continua dentro dele
+        in.skipWhitespace();
+        String element = in.capture(MAX_FILTER_CHARS);
+        if (element == null) {
+            if (next == 0) {
+                in.skipValue();
+                return true;
+            }
+            return evaluate(in, next, false, sink);
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            if ((filters & (1L << i)) != 0 && segments.get(i).filter.test(element)) {
+                next |= 1L << (i + 1);
+            }
+        }
+        return next == 0 || evaluate(new Source(element), next, false, sink);
+    }
+
+    private static class Segment {
+        static final int NAME = 0;
+        static final int INDEX = 1;
+        static final int WILDCARD = 2;
+        static final int FILTER = 3;
+
+        final int kind;
+        String name;
+        int index;
+        Filter filter;
+        boolean descendant; // ..
+
+        Segment(int kind) {
+            this.kind = kind;
+        }
+    }
+
+    // (@.campo OP literal) ou (@.campo); OP: == != < <= > >=; literal: número, 'texto', "texto", true,
+    // false, null
+    private static class Filter {
+        JsonPath path;
+        String operator;
+        String literal; // JSON
+
+        static Filter parse(String text, String expression) {
+            if (!text.startsWith("(") || !text.endsWith(")")) {
+                throw new IllegalArgumentException("Filter must be ?(...) in " + expression);
+            }
+            String inner = text.substring(1, text.length() - 1).strip();
+            if (!inner.startsWith("@")) {
+                throw new IllegalArgumentException("Filter must start with @ in " + expression);
+            }
+            Filter filter = new Filter();
+            int op = -1;
+            boolean space = false;
+            char quote = 0;
+            for (int i = 1; i < inner.length() && op < 0; i++) {
+                char c = inner.charAt(i);
+                if (quote != 0) {
+                    quote = c == quote ? 0 : quote;
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if ("=!<>".indexOf(c) >= 0) {
+                    op = i;
+                } else if (Character.isWhitespace(c)) {
+                    space = true;
+                }
+            }
+            if (op < 0 && space) {
+                throw new IllegalArgumentException("Unsupported filter (" + inner + ") in " + expression);
+            }
+            String left = op < 0 ? inner : inner.substring(0, op).strip();
+            filter.path = compile("$" + left.substring(1));
+            if (op >= 0) {
+                int opEnd = op + 1 < inner.length() && inner.charAt(op + 1) == '=' ? op + 2 : op + 1;
+                filter.operator = inner.substring(op, opEnd);
+                if (!List.of("==", "!=", "<", "<=", ">", ">=").contains(filter.operator)) {
+                    throw new IllegalArgumentException("Unsupported operator " + filter.operator + " in "
+                            + expression);
+                }
+                String value = inner.substring(opEnd).strip();
+                if (value.startsWith("'") && value.endsWith("'") && value.length() >= 2) {
+                    value = JsonPrettyPrinter.quote(value.substring(1, value.length() - 1));
+                }
+                if (!isNumber(value) && !List.of("true", "false", "null").contains(value)
+                        && !(value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))) {
+                    // && e || também caem aqui
+                    throw new IllegalArgumentException("Unsupported filter value " + value + " in " + expression);
+                }
+                filter.literal = value;
+            }
+            return filter;
+        }
+
+        boolean test(String element) {
+            String[] found = new String[1];
+            try {
+                path.evaluate(new Source(element), 1L, true, raw -> {
+                    found[0] = raw;
+                    return false;
+                });
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+            if (operator == null || found[0] == null) {
+                return operator == null ? found[0] != null : operator.equals("!=");
+            }
+            int comparison;
+            boolean numbers = isNumber(found[0]) && isNumber(literal);
+            if (numbers) {
+                comparison = Double.compare(Double.parseDouble(found[0]), Double.parseDouble(literal));
+            } else if (found[0].startsWith("\"") && literal.startsWith("\"")) {
+                comparison = unquote(found[0]).compareTo(unquote(literal));
+            } else {
+                boolean equal = found[0].equals(literal);
+                return operator.equals("==") ? equal : operator.equals("!=") && !equal;
+            }
+            return switch (operator) {
+                case "==" -> comparison == 0;
+                case "!=" -> comparison != 0;
+                case "<" -> comparison < 0;
+                case "<=" -> comparison <= 0;
+                case ">" -> comparison > 0;
+                default -> comparison >= 0;
+            };
+        }
+
+        private static boolean isNumber(String raw) {
+            if (raw.isEmpty() || !(raw.charAt(0) == '-' || Character.isDigit(raw.charAt(0)))) {
+                return false;
+            }
+            try {
+                Double.parseDouble(raw);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+
+    // Valor passou do limite de capture(max); sem stack trace, é só controle de fluxo
+    private static class TooLarge extends RuntimeException {
+        TooLarge() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Texto JSON lido de uma String ou, em blocos, de um Reader. capture() devolve o próximo valor como
+    // String copiando os blocos já lidos, sem reler nada.
+    private static class Source {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        final Reader reader;
+        char[] buffer;
+        int pos;
+        int limit;
+        long offset; // caracteres descartados antes de buffer[0], para as mensagens de erro
+        StringBuilder captured;
+        int captureFrom;
+        int captureLimit = Integer.MAX_VALUE;
+        final StringBuilder key = new StringBuilder();
+
+        Source(String text) {
+            reader = null;
+            buffer = text.toCharArray();
+            limit = buffer.length;
+        }
+
+        Source(Reader reader) {
+            this.reader = reader;
+            buffer = new char[BUFFER_SIZE];
+        }
+
+        // -1 no fim
+        int peek() throws IOException {
+            return pos < limit || fill() ? buffer[pos] : -1;
+        }
+
+        private boolean fill() throws IOException {
+            if (reader == null) {
+                return false;
+            }
+            // Um corpo grande sem resultados também precisa poder ser cancelado
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("JSON path evaluation interrupted");
+            }
+            if (captured != null) {
+                captured.append(buffer, captureFrom, limit - captureFrom);
+                captureFrom = 0;
+                if (captured.length() > captureLimit) {
+                    throw new TooLarge();
+                }
+            }
+            offset += limit;
+            pos = 0;
+            limit = 0;
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read > 0) {
+                limit = read;
+            }
+            return read > 0;
+        }
+
+        void skipWhitespace() throws IOException {
+            while (true) {
+                while (pos < limit) {
+                    char c = buffer[pos];
+                    if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                        return;
+                    }
+                    pos++;
+                }
+                if (!fill()) {
+                    return;
+                }
+            }
+        }
+
+        void expect(char expected) throws IOException {
+            skipWhitespace();
+            if (peek() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+            pos++;
+        }
+
+        IllegalArgumentException error(String message) throws IOException {
+            int c = peek();
+            return new IllegalArgumentException("Invalid JSON at offset " + (offset + pos) + ": " + message
+                    + (c < 0 ? ", found end of input" : ", found '" + (char) c + "'"));
+        }
+
+        // Depois de '{' ou de um membro: lê a próxima chave e o ':' (false no '}')
+        boolean nextMember(StringBuilder key) throws IOException {
+            skipWhitespace();
+            int c = peek();
+            if (c == ',') {
+                pos++;
+                skipWhitespace();
+                c = peek();
+            }
+            if (c == '}') {
+                pos++;
+                return false;
+            }
+            if (c != '"') {
+                throw error("expected a key");
+            }
+            key.setLength(0);
+            readString(key);
+            expect(':');
+            skipWhitespace();
+            return true;
+        }
+
+        // Depois de '[' ou de um elemento: false no ']'
+        boolean nextElement() throws IOException {
+            skipWhitespace();
+            int c = peek();
+            if (c == ',') {
+                pos++;
+                skipWhitespace();
+                c = peek();
+            }
+            if (c == ']') {
+                pos++;
+                return false;
+            }
+            if (c < 0) {
+                throw error("unclosed array");
+            }
+            return true;
+        }
+
+        // Posicionado no '"'; acrescenta o texto sem aspas e com escapes resolvidos
+        StringBuilder readString(StringBuilder out) throws IOException {
+            pos++;
+            while (true) {
+                int start = pos;
+                while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\') {
+                    pos++;
+                }
+                out.append(buffer, start, pos - start);
+                if (pos == limit) {
+                    if (!fill()) {
+                        throw error("unclosed string");
+                    }
+                    continue;
+                }
+                char c = buffer[pos++];
+                if (c == '"') {
+                    return out;
+                }
+                int e = peek();
+                pos++;
+                switch (e) {
+                    case 'n' -> out.append('\n');
+                    case 't' -> out.append('\t');
+                    case 'r' -> out.append('\r');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(peek(), 16);
+                            if (digit < 0) {
+                                throw error("bad \\u escape");
+                            }
+                            code = code * 16 + digit;
+                            pos++;
+                        }
+                        out.append((char) code);
+                    }
+                    case -1 -> throw error("unclosed string");
+                    default -> out.append((char) e);
+                }
+            }
+        }
+
+        // O próximo valor como o JSON original
+        String capture() throws IOException {
+            skipWhitespace();
+            if (reader == null) {
+                int start = pos;
+                skipValue();
+                return new String(buffer, start, pos - start);
+            }
+            captured = new StringBuilder();
+            captureFrom = pos;
+            skipValue();
+            captured.append(buffer, captureFrom, pos - captureFrom);
+            String value = captured.toString();
+            captured = null;
+            return value;
+        }
+
+        // Como capture(), mas devolve null, sem avançar, se o valor passar de max caracteres
+        String capture(int max) throws IOException {
+            skipWhitespace();
+            int start = pos;
+            if (reader == null) {
+                skipValue();
+                if (pos - start > max) {
+                    pos = start;
+                    return null;
+                }
+                return new String(buffer, start, pos - start);
+            }
+            long startOffset = offset + start;
+            captureLimit = max;
+            try {
+                String value = capture();
+                if (value.length() <= max) {
+                    return value;
+                }
+                if (offset + start == startOffset) {
+                    pos = start; // ainda está todo no buffer
+                } else {
+                    rewind(value, startOffset);
+                }
+            } catch (TooLarge e) {
+                rewind(captured.toString(), startOffset);
+            } finally {
+                captureLimit = Integer.MAX_VALUE;
+                captured = null;
+            }
+            return null;
+        }
+
+        // Volta a ler a partir de startOffset: o que já foi lido vai para o buffer, seguido do resto do bloco
+        private void rewind(String read, long startOffset) {
+            int rest = limit - pos;
+            char[] chars = new char[Math.max(BUFFER_SIZE, read.length() + rest)];
+            read.getChars(0, read.length(), chars, 0);
+            System.arraycopy(buffer, pos, chars, read.length(), rest);
+            buffer = chars;
+            pos = 0;
+            limit = read.length() + rest;
+            offset = startOffset;
+        }
+
+        // Pula um valor inteiro olhando só aspas, escapes e a profundidade
+        void skipValue() throws IOException {
+            skipWhitespace();
+            int first = peek();
+            if (first < 0) {
+                throw error("expected a value");
+            }
+            if (first != '{' && first != '[' && first != '"') {
+                // número, true, false, null
+                while (true) {
+                    while (pos < limit) {
+                        char c = buffer[pos];
+                        if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                            return;
+                        }
+                        pos++;
+                    }
+                    if (!fill()) {
+                        return;
+                    }
+                }
+            }
+            skipContainer(0);
+        }
+
+        // Pula uma string, objeto ou array inteiro (depth 0) ou o resto de um já aberto (depth 1)
+        void skipContainer(int depth) throws IOException {
+            boolean inString = false;
+            while (true) {
+                while (pos < limit) {
+                    char c = buffer[pos++];
+                    if (inString) {
+                        if (c == '\\') {
+                            if (pos == limit && !fill()) {
+                                throw error("unclosed string");
+                            }
+                            pos++;
+                        } else if (c == '"') {
+                            inString = false;
+                            if (depth == 0) {
+                                return;
+                            }
+                        }
+                    } else if (c == '"') {
+                        inString = true;
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if ((c == '}' || c == ']') && --depth == 0) {
+                        return;
+                    }
+                }
+                if (!fill()) {
+                    throw error(inString ? "unclosed string" : "unclosed object or array");
+                }
+            }
+        }
+    }
+}
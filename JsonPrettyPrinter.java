@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+// Formatador de JSON em streaming: recebe o corpo em pedaços (na ordem em que chegam) e escreve a saída
+// indentada num Writer/Appendable. Guarda só o estado do autômato e um buffer fixo, então o consumo de
+// memória não depende do tamanho do corpo. Para de escrever ao atingir o limite de saída.
+public class JsonPrettyPrinter {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int INDENT_WIDTH = 2;
+    // "\n" seguido de espaços; a indentação de nível n são os primeiros 1 + 2n caracteres
+    private static final char[] INDENT = ("\n" + " ".repeat(INDENT_WIDTH * 256)).toCharArray();
+
+    private final Appendable out;
+    private final long limit;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+    private long written;
+    private int depth;
+    private boolean inQuotes;
+    private boolean escape;
+    private boolean pendingOpen; // abriu { ou [ e ainda não sabe se está vazio
+    private boolean truncated;
+
+    public JsonPrettyPrinter(Appendable out, long limit) {
+        this.out = out;
+        this.limit = limit;
+    }
+
+    public static String format(String json) {
+        ClientEvents.Format event = new ClientEvents.Format();
+        event.begin();
+        StringBuilder sb = new StringBuilder(json.length() + (json.length() >> 2));
+        JsonPrettyPrinter printer = new JsonPrettyPrinter(sb, Long.MAX_VALUE);
+        printer.feed(json);
+        printer.finish();
+        printer.commit(event, json.length());
+        return sb.toString();
+    }
+
+    // Formata tudo o que vier do reader; devolve false se parou no limite
+    public static boolean format(Reader reader, Appendable out, long limit) throws IOException {
+        ClientEvents.Format event = new ClientEvents.Format();
+        event.begin();
+        JsonPrettyPrinter printer = new JsonPrettyPrinter(out, limit);
+        char[] chunk = new char[BUFFER_SIZE];
+        long read = 0;
+        int n;
+        while (!printer.truncated && (n = reader.read(chunk)) != -1) {
+            printer.feed(chunk, 0, n);
+            read += n;
+        }
+        printer.finish();
+        printer.commit(event, read);
+        return !printer.truncated;
+    }
+
+    private void commit(ClientEvents.Format event, long charsIn) {
+        event.kind = "json";
+        event.bytesIn = charsIn;
+        event.charsOut = written();
+        event.commit();
+    }
+
+    public boolean feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length() && !truncated; i++) {
+            accept(chunk.charAt(i));
+        }
+        return !truncated;
+    }
+
+    public boolean feed(char[] chunk, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end && !truncated; i++) {
+            accept(chunk[i]);
+        }
+        return !truncated;
+    }
+
+    public void finish() {
+        flush();
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public long written() {
+        return written + length;
+    }
+
+    private void accept(char c) {
+        if (inQuotes) {
+            put(c);
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                inQuotes = false;
+            }
+            return;
+        }
+        if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            return; // espaços fora de string são refeitos pela indentação
+        }
+        if (pendingOpen) {
+            pendingOpen = false;
+            if (c == '}' || c == ']') {
+                depth--;
+                put(c); // {} e [] ficam na mesma linha
+                return;
+            }
+            newLine();
+        }
+        switch (c) {
+            case '"' -> {
+                inQuotes = true;
+                put(c);
+            }
+            case '{', '[' -> {
+                put(c);
+                depth++;
+                pendingOpen = true;
+            }
+            case '}', ']' -> {
+                depth = Math.max(0, depth - 1);
+                newLine();
+                put(c);
+            }
+            case ',' -> {
+                put(c);
+                newLine();
+            }
+            case ':' -> {
+                put(c);
+                put(' ');
+            }
+            default -> put(c);
+        }
+    }
+
+    private void newLine() {
+        int remaining = 1 + depth * INDENT_WIDTH;
+        int from = 0;
+        while (remaining > 0 && !truncated) {
+            int n = Math.min(remaining, INDENT.length - from);
+            n = Math.min(n, reserve(n));
+            System.arraycopy(INDENT, from, buffer, length, n);
+            length += n;
+            remaining -= n;
+            from = 1; // níveis além da tabela continuam só com espaços
+        }
+    }
+
+    private void put(char c) {
+        if (reserve(1) > 0) {
+            buffer[length++] = c;
+        }
+    }
+
+    // Quantos dos n caracteres cabem no buffer e no limite (esvaziando o buffer se preciso)
+    private int reserve(int n) {
+        if (length == buffer.length) {
+            flush();
+        }
+        long room = limit - written - length;
+        if (room <= 0) {
+            truncated = true;
+            return 0;
+        }
+        return (int) Math.min(Math.min(n, room), buffer.length - length);
+    }
+
+    private void flush() {
+        if (length == 0) {
+            return;
+        }
+        try {
+            if (out instanceof StringBuilder sb) {
+                sb.append(buffer, 0, length);
+            } else if (out instanceof Writer writer) {
+                writer.write(buffer, 0, length);
+            } else {
+                out.append(CharBuffer.wrap(buffer, 0, length));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        written += length;
+        length = 0;
+    }
+
+    // Texto como string JSON, com aspas
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+// Histograma log-linear no estilo HDR: 7 bits de precisão (erro < 1%) e memória fixa,
+// independente de quantas amostras forem gravadas. Valores em microssegundos.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 64 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKETS + MAX_SHIFT * HALF];
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private long sum;
+
+    public void record(long micros) {
+        long value = Math.max(micros, 0);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // percentile entre 0 e 100
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Pares [limite superior do bucket, contagem] apenas dos buckets não vazios
+    public long[][] buckets() {
+        return Arrays.stream(indexes()).mapToObj(i -> new long[] { highestEquivalent(i), counts[i] })
+                .toArray(long[][]::new);
+    }
+
+    private int[] indexes() {
+        int[] used = new int[counts.length];
+        int size = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                used[size++] = i;
+            }
+        }
+        return Arrays.copyOf(used, size);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,252 @@
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Dispara a mesma requisição N vezes (ou por um tempo) com concorrência e taxa configuráveis.
+// Cada worker é uma virtual thread com seu próprio histograma, então a memória não cresce com o
+// número de requisições. Com taxa, a latência conta a partir do horário agendado e não do envio real,
+// para que a fila formada por um servidor lento apareça nos percentis (coordinated omission).
+public class LoadTest {
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final Config config;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private volatile ExecutorService workers;
+    private final LongAdder completed = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public LoadTest(HttpClient client, HttpRequest request, Config config) {
+        this.client = client;
+        this.request = request;
+        this.config = config;
+    }
+
+    public Report run(Consumer<Report> progress) {
+        long start = System.nanoTime();
+        long deadline = config.duration == null ? Long.MAX_VALUE : start + config.duration.toNanos();
+        long interval = config.ratePerSecond > 0 ? 1_000_000_000L / config.ratePerSecond : 0;
+        AtomicLong tickets = new AtomicLong(config.requests > 0 ? config.requests : Long.MAX_VALUE);
+        AtomicLong nextSlot = new AtomicLong(start);
+        List<LatencyHistogram> histograms = new ArrayList<>();
+
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        if (progress != null) {
+            monitor.scheduleAtFixedRate(() -> progress.accept(report(null, start)), PROGRESS_INTERVAL_MS,
+                    PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            this.workers = workers;
+            if (stopped.get()) {
+                workers.shutdownNow();
+            }
+            for (int w = 0; w < config.concurrency && !workers.isShutdown(); w++) {
+                LatencyHistogram histogram = new LatencyHistogram();
+                histograms.add(histogram);
+                workers.execute(() -> work(histogram, tickets, nextSlot, interval, deadline));
+            }
+        } finally {
+            monitor.shutdownNow();
+        }
+
+        LatencyHistogram total = new LatencyHistogram();
+        histograms.forEach(total::add);
+        return report(total, start);
+    }
+
+    // Interrompe também os envios em andamento, então um servidor travado não segura o Stop
+    public void stop() {
+        stopped.set(true);
+        ExecutorService running = workers;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private void work(LatencyHistogram histogram, AtomicLong tickets, AtomicLong nextSlot, long interval,
+            long deadline) {
+        while (!stopped.get() && tickets.getAndDecrement() > 0) {
+            long begin;
+            if (interval > 0) {
+                begin = nextSlot.getAndAdd(interval);
+                long wait = begin - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                begin = System.nanoTime();
+            }
+            if (System.nanoTime() >= deadline || stopped.get()) {
+                return;
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                histogram.record((System.nanoTime() - begin) / 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (stopped.get()) {
+                    return; // cancelado pelo Stop, não é falha do servidor
+                }
+                // Falhas ficam fora do histograma: um connection refused instantâneo baixaria os percentis
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                errors.computeIfAbsent(cause.getClass().getSimpleName(), name -> new LongAdder()).increment();
+            }
+            completed.increment();
+        }
+    }
+
+    private Report report(LatencyHistogram histogram, long start) {
+        Report report = new Report();
+        report.finished = histogram != null;
+        report.histogram = histogram;
+        report.completed = completed.sum();
+        report.elapsedNanos = System.nanoTime() - start;
+        statuses.forEach((code, count) -> report.statuses.put(code, count.sum()));
+        errors.forEach((name, count) -> report.errors.put(name, count.sum()));
+        return report;
+    }
+
+    public static class Config {
+        static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+        long requests;
+        Duration duration;
+        int concurrency = 1;
+        int ratePerSecond;
+        Duration timeout = DEFAULT_TIMEOUT; // por requisição
+
+        public Config(long requests, Duration duration, int concurrency, int ratePerSecond) {
+            this.requests = requests;
+            this.duration = duration;
+            this.concurrency = Math.max(1, concurrency);
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public Config(long requests, Duration duration, int concurrency, int ratePerSecond, Duration timeout) {
+            this(requests, duration, concurrency, ratePerSecond);
+            this.timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+        }
+    }
+
+    public static class Report {
+        private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+        boolean finished;
+        long completed;
+        long elapsedNanos;
+        LatencyHistogram histogram;
+        Map<Integer, Long> statuses = new TreeMap<>();
+        Map<String, Long> errors = new TreeMap<>();
+
+        public double throughput() {
+            return elapsedNanos == 0 ? 0 : completed / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(finished ? "Finished" : "Running").append(": ").append(completed).append(" requests in ")
+                    .append(String.format("%.1f", elapsedNanos / 1_000_000_000.0)).append(" s (")
+                    .append(String.format("%.1f", throughput())).append(" req/s)\n");
+            if (histogram != null) {
+                sb.append("\nLatency of responses (ms):\n");
+                sb.append(String.format(" min    %10.2f%n", histogram.min() / 1000.0));
+                sb.append(String.format(" mean   %10.2f%n", histogram.mean() / 1000.0));
+                for (double p : PERCENTILES) {
+                    sb.append(String.format(" p%-5s %10.2f%n", label(p), histogram.percentile(p) / 1000.0));
+                }
+                sb.append(String.format(" max    %10.2f%n", histogram.max() / 1000.0));
+            }
+            sb.append("\nStatus codes:\n");
+            statuses.forEach((code, count) -> sb.append(" ").append(code).append(": ").append(count).append("\n"));
+            if (!errors.isEmpty()) {
+                sb.append("\nErrors:\n");
+                errors.forEach((name, count) -> sb.append(" ").append(name).append(": ").append(count).append("\n"));
+            }
+            return sb.toString();
+        }
+
+        public String toCsv() {
+            StringBuilder sb = new StringBuilder("metric,value\n");
+            sb.append("requests,").append(completed).append("\n");
+            sb.append("elapsed_ms,").append(elapsedNanos / 1_000_000).append("\n");
+            sb.append("throughput_rps,").append(String.format(Locale.ROOT, "%.2f", throughput())).append("\n");
+            if (histogram != null) {
+                sb.append("min_us,").append(histogram.min()).append("\n");
+                sb.append("mean_us,").append(String.format(Locale.ROOT, "%.0f", histogram.mean())).append("\n");
+                for (double p : PERCENTILES) {
+                    sb.append("p").append(label(p)).append("_us,").append(histogram.percentile(p)).append("\n");
+                }
+                sb.append("max_us,").append(histogram.max()).append("\n");
+            }
+            statuses.forEach((code, count) -> sb.append("status_").append(code).append(",").append(count)
+                    .append("\n"));
+            errors.forEach((name, count) -> sb.append("error_").append(name).append(",").append(count).append("\n"));
+            if (histogram != null) {
+                sb.append("\nlatency_upper_us,count\n");
+                for (long[] bucket : histogram.buckets()) {
+                    sb.append(bucket[0]).append(",").append(bucket[1]).append("\n");
+                }
+            }
+            return sb.toString();
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder("{");
+            sb.append("\"requests\":").append(completed);
+            sb.append(",\"elapsedMs\":").append(elapsedNanos / 1_000_000);
+            sb.append(",\"throughputRps\":").append(String.format(Locale.ROOT, "%.2f", throughput()));
+            if (histogram != null) {
+                sb.append(",\"latencyUs\":{\"min\":").append(histogram.min());
+                sb.append(",\"mean\":").append(String.format(Locale.ROOT, "%.0f", histogram.mean()));
+                for (double p : PERCENTILES) {
+                    sb.append(",\"p").append(label(p)).append("\":").append(histogram.percentile(p));
+                }
+                sb.append(",\"max\":").append(histogram.max()).append("}");
+                sb.append(",\"histogram\":[");
+                long[][] buckets = histogram.buckets();
+                for (int i = 0; i < buckets.length; i++) {
+                    sb.append(i > 0 ? "," : "").append("[").append(buckets[i][0]).append(",").append(buckets[i][1])
+                            .append("]");
+                }
+                sb.append("]");
+            }
+            sb.append(",\"statuses\":{");
+            String separator = "";
+            for (Map.Entry<Integer, Long> status : statuses.entrySet()) {
+                sb.append(separator).append("\"").append(status.getKey()).append("\":").append(status.getValue());
+                separator = ",";
+            }
+            sb.append("},\"errors\":{");
+            separator = "";
+            for (Map.Entry<String, Long> error : errors.entrySet()) {
+                sb.append(separator).append("\"").append(error.getKey()).append("\":").append(error.getValue());
+                separator = ",";
+            }
+            return sb.append("}}").toString();
+        }
+
+        private static String label(double percentile) {
+            return percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                    : String.valueOf(percentile).replace(".", "");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public class LoadTestDialog extends JDialog {
+
+    // Monta o LoadTest a partir da requisição que está na tela
+    public interface Factory {
+        LoadTest create(LoadTest.Config config) throws IOException;
+    }
+
+    private final JSpinner requestsSpinner = new JSpinner(new SpinnerNumberModel(1000, 0, Integer.MAX_VALUE, 100));
+    private final JSpinner durationSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 86400, 1));
+    private final JSpinner concurrencySpinner = new JSpinner(new SpinnerNumberModel(10, 1, 10000, 1));
+    private final JSpinner rateSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 1_000_000, 10));
+    private final JSpinner timeoutSpinner = new JSpinner(new SpinnerNumberModel(30, 1, 3600, 1));
+    private final JTextArea reportArea = new JTextArea(20, 60);
+    private final JButton startButton = new JButton("Start");
+    private final JButton stopButton = new JButton("Stop");
+    private final JButton csvButton = new JButton("Export CSV");
+    private final JButton jsonButton = new JButton("Export JSON");
+    private LoadTest running;
+    private LoadTest.Report lastReport;
+
+    public LoadTestDialog(Frame owner, String title, Factory factory) {
+        super(owner, "Load Test - " + title, false);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel params = new JPanel(new GridLayout(0, 2, 5, 5));
+        params.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        params.add(new JLabel("Requests (0 = until duration)"));
+        params.add(requestsSpinner);
+        params.add(new JLabel("Duration (s, 0 = until requests)"));
+        params.add(durationSpinner);
+        params.add(new JLabel("Concurrency"));
+        params.add(concurrencySpinner);
+        params.add(new JLabel("Target rate (req/s, 0 = unlimited)"));
+        params.add(rateSpinner);
+        params.add(new JLabel("Timeout per request (s)"));
+        params.add(timeoutSpinner);
+        add(params, BorderLayout.NORTH);
+
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        add(new JScrollPane(reportArea), BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel();
+        stopButton.setEnabled(false);
+        csvButton.setEnabled(false);
+        jsonButton.setEnabled(false);
+        buttons.add(startButton);
+        buttons.add(stopButton);
+        buttons.add(csvButton);
+        buttons.add(jsonButton);
+        add(buttons, BorderLayout.SOUTH);
+
+        startButton.addActionListener(e -> start(factory));
+        stopButton.addActionListener(e -> {
+            if (running != null) {
+                running.stop();
+            }
+        });
+        csvButton.addActionListener(e -> export(lastReport.toCsv(), "load-test.csv"));
+        jsonButton.addActionListener(e -> export(lastReport.toJson(), "load-test.json"));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (running != null) {
+                    running.stop();
+                }
+            }
+        });
+
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    private void start(Factory factory) {
+        long requests = ((Number) requestsSpinner.getValue()).longValue();
+        int seconds = ((Number) durationSpinner.getValue()).intValue();
+        if (requests == 0 && seconds == 0) {
+            reportArea.setText("Set a number of requests or a duration.");
+            return;
+        }
+        LoadTest.Config config = new LoadTest.Config(requests, seconds > 0 ? Duration.ofSeconds(seconds) : null,
+                ((Number) concurrencySpinner.getValue()).intValue(), ((Number) rateSpinner.getValue()).intValue(),
+                Duration.ofSeconds(((Number) timeoutSpinner.getValue()).intValue()));
+        try {
+            running = factory.create(config);
+        } catch (IOException | RuntimeException ex) {
+            reportArea.setText("Error: " + ex.getMessage());
+            return;
+        }
+        LoadTest test = running;
+        startButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        csvButton.setEnabled(false);
+        jsonButton.setEnabled(false);
+        // Thread própria: o teste bloqueia até o fim e não deve ocupar o pool comum
+        CompletableFuture.supplyAsync(
+                () -> test.run(report -> SwingUtilities.invokeLater(() -> reportArea.setText(report.toString()))),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "load-test");
+                    thread.setDaemon(true);
+                    thread.start();
+                })
+                .whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            running = null;
+            startButton.setEnabled(true);
+            stopButton.setEnabled(false);
+            if (error != null) {
+                reportArea.setText("Error: " + error.getMessage());
+                return;
+            }
+            lastReport = report;
+            reportArea.setText(report.toString());
+            csvButton.setEnabled(true);
+            jsonButton.setEnabled(true);
+        }));
+    }
+
+    private void export(String content, String suggestedName) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(suggestedName));
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                Files.writeString(chooser.getSelectedFile().toPath(), content, StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
+            }
+        }
+    }
+}
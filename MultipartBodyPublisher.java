@@ -0,0 +1,103 @@
+import java.io.FileNotFoundException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+public class MultipartBodyPublisher {
+
+    private MultipartBodyPublisher() {
+    }
+
+    // Os arquivos são lidos sob demanda pelo ofFile, nada é copiado para a memória
+    public static BodyPublisher of(List<HttpClientService.FormField> fields, String boundary,
+            TransferListener progress) throws FileNotFoundException {
+        List<BodyPublisher> parts = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        for (HttpClientService.FormField field : fields) {
+            chunk.append("--").append(boundary).append("\r\n");
+            if (field.isFile) {
+                Path filePath = Paths.get(field.value);
+                String fileName = filePath.getFileName().toString();
+                chunk.append("Content-Disposition: form-data; name=\"").append(field.name).append("\"; filename=\"")
+                        .append(fileName).append("\"\r\n");
+                chunk.append("Content-Type: application/octet-stream\r\n\r\n");
+                parts.add(bytes(chunk));
+                parts.add(BodyPublishers.ofFile(filePath));
+                chunk.append("\r\n");
+            } else {
+                chunk.append("Content-Disposition: form-data; name=\"").append(field.name).append("\"\r\n\r\n");
+                chunk.append(field.value).append("\r\n");
+            }
+        }
+        chunk.append("--").append(boundary).append("--\r\n");
+        parts.add(bytes(chunk));
+
+        BodyPublisher body = BodyPublishers.concat(parts.toArray(new BodyPublisher[0]));
+        return progress == null ? body : new CountingPublisher(body, progress);
+    }
+
+    private static BodyPublisher bytes(StringBuilder chunk) {
+        BodyPublisher publisher = BodyPublishers.ofByteArray(chunk.toString().getBytes(StandardCharsets.UTF_8));
+        chunk.setLength(0);
+        return publisher;
+    }
+
+    static class CountingPublisher implements BodyPublisher {
+        private final BodyPublisher delegate;
+        private final TransferListener listener;
+
+        CountingPublisher(BodyPublisher delegate, TransferListener listener) {
+            this.delegate = delegate;
+            this.listener = listener;
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            long total = delegate.contentLength();
+            long start = System.nanoTime();
+            delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                private long sent;
+                private long lastReport;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ByteBuffer item) {
+                    sent += item.remaining();
+                    long now = System.nanoTime();
+                    if (now - lastReport >= 100_000_000L) {
+                        lastReport = now;
+                        listener.onProgress(sent, total, now - start);
+                    }
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    listener.onProgress(sent, total, System.nanoTime() - start);
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Arquivo de coleção, um bloco por passo:
+//
+// step login
+// request <registro no formato do histórico>
+// extract token json $.access_token
+// extract session header Set-Cookie
+// after other-step
+public class RequestCollection {
+
+    final List<Step> steps = new ArrayList<>();
+
+    public static RequestCollection load(Path file) throws IOException {
+        RequestCollection collection = new RequestCollection();
+        Step current = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(" ", 2);
+                String value = parts.length > 1 ? parts[1] : "";
+                switch (parts[0]) {
+                    case "step" -> {
+                        current = new Step(value.strip());
+                        collection.steps.add(current);
+                    }
+                    case "request" -> requireStep(current, number).request = HistoryEntry.decode(value);
+                    case "after" -> {
+                        for (String dependency : value.split(",")) {
+                            requireStep(current, number).after.add(dependency.strip());
+                        }
+                    }
+                    case "extract" -> {
+                        String[] spec = value.strip().split(" ", 3);
+                        if (spec.length < 3 || !(spec[1].equals("json") || spec[1].equals("header"))) {
+                            throw new IOException("Line " + number + ": expected 'extract <var> json|header <expr>'");
+                        }
+                        requireStep(current, number).extractions.add(new Extraction(spec[0], spec[1], spec[2]));
+                    }
+                    default -> throw new IOException("Line " + number + ": unknown directive " + parts[0]);
+                }
+            }
+        }
+        for (Step step : collection.steps) {
+            if (step.request == null) {
+                throw new IOException("Step " + step.name + " has no request");
+            }
+        }
+        return collection;
+    }
+
+    public void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Step step : steps) {
+                writer.write("step " + step.name + "\n");
+                if (!step.after.isEmpty()) {
+                    writer.write("after " + String.join(",", step.after) + "\n");
+                }
+                writer.write("request " + step.request.encode() + "\n");
+                for (Extraction extraction : step.extractions) {
+                    writer.write("extract " + extraction.variable + " " + extraction.source + " "
+                            + extraction.expression + "\n");
+                }
+                writer.write("\n");
+            }
+        }
+    }
+
+    public Step addStep(HistoryEntry request) {
+        String base = request.method.toLowerCase(Locale.ROOT);
+        String path = request.url.replaceAll("[?#].*$", "").replaceAll("/+$", "");
+        int slash = path.lastIndexOf('/');
+        if (slash >= 0 && slash < path.length() - 1) {
+            base += "-" + path.substring(slash + 1);
+        }
+        String name = base;
+        for (int i = 2; stepNamed(name) != null; i++) {
+            name = base + "-" + i;
+        }
+        Step step = new Step(name);
+        step.request = request;
+        steps.add(step);
+        return step;
+    }
+
+    public Step stepNamed(String name) {
+        for (Step step : steps) {
+            if (step.name.equals(name)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private static Step requireStep(Step step, int line) throws IOException {
+        if (step == null) {
+            throw new IOException("Line " + line + ": directive before any 'step'");
+        }
+        return step;
+    }
+
+    public static class Step {
+        final String name;
+        HistoryEntry request;
+        Set<String> after = new LinkedHashSet<>();
+        List<Extraction> extractions = new ArrayList<>();
+
+        public Step(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Extraction {
+        final String variable;
+        final String source;
+        final String expression;
+
+        public Extraction(String variable, String source, String expression) {
+            this.variable = variable;
+            this.source = source;
+            this.expression = expression;
+        }
+    }
+}
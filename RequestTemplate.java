@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Requisição com {{variáveis}} na URL, headers, corpo e campos do form. O texto é analisado uma vez só
+// (headers já separados em nome/valor, cada texto em pedaços literais + nomes de variáveis); render()
+// só concatena, então dá para gerar uma requisição por linha de um arquivo grande sem refazer o parse.
+public class RequestTemplate {
+
+    static final Pattern VARIABLE = Pattern.compile("\\{\\{\\s*([\\w.-]+)\\s*}}");
+
+    private final String method;
+    private final Text url;
+    private final List<Text[]> headers = new ArrayList<>();
+    private final String bodyType;
+    private final Text rawBody;
+    private final List<Text[]> fields = new ArrayList<>();
+    private final List<Boolean> fileFields = new ArrayList<>();
+    private final Set<String> variables = new LinkedHashSet<>();
+
+    private RequestTemplate(HistoryEntry entry) {
+        method = entry.method;
+        url = text(entry.url.strip());
+        for (String[] header : HttpClientService.parseHeaders(entry.headers)) {
+            headers.add(new Text[] { text(header[0]), text(header[1]) });
+        }
+        bodyType = entry.bodyType;
+        rawBody = text(entry.rawBody);
+        for (HttpClientService.FormField field : entry.fields) {
+            fields.add(new Text[] { text(field.name), text(field.value) });
+            fileFields.add(field.isFile);
+        }
+    }
+
+    public static RequestTemplate compile(HistoryEntry entry) {
+        return new RequestTemplate(entry);
+    }
+
+    // Nomes usados, na ordem em que aparecem
+    public Set<String> variables() {
+        return variables;
+    }
+
+    // Variável sem valor fica como {{nome}} no texto e vai para Rendered.missing
+    public Rendered render(Map<String, String> values) {
+        Rendered rendered = new Rendered();
+        rendered.method = method;
+        rendered.url = url.render(values, rendered.missing);
+        for (Text[] header : headers) {
+            rendered.headers.add(new String[] { header[0].render(values, rendered.missing),
+                    header[1].render(values, rendered.missing) });
+        }
+        rendered.bodyType = bodyType;
+        rendered.rawBody = rawBody.render(values, rendered.missing);
+        for (int i = 0; i < fields.size(); i++) {
+            Text[] field = fields.get(i);
+            rendered.fields.add(new HttpClientService.FormField(field[0].render(values, rendered.missing),
+                    field[1].render(values, rendered.missing), fileFields.get(i)));
+        }
+        return rendered;
+    }
+
+    private Text text(String source) {
+        Text text = new Text();
+        if (source == null || !source.contains("{{")) {
+            text.literals = new String[] { source };
+            text.names = new String[0];
+            return text;
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Matcher matcher = VARIABLE.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(source.substring(last, matcher.start()));
+            names.add(matcher.group(1));
+            last = matcher.end();
+        }
+        literals.add(source.substring(last));
+        text.literals = literals.toArray(String[]::new);
+        text.names = names.toArray(String[]::new);
+        text.length = source.length();
+        variables.addAll(names);
+        return text;
+    }
+
+    // literals[0] names[0] literals[1] names[1] ... literals[n]
+    private static class Text {
+        String[] literals;
+        String[] names;
+        int length;
+
+        String render(Map<String, String> values, Set<String> missing) {
+            if (names.length == 0) {
+                return literals[0];
+            }
+            StringBuilder sb = new StringBuilder(length + 16).append(literals[0]);
+            for (int i = 0; i < names.length; i++) {
+                String value = values.get(names[i]);
+                if (value == null) {
+                    missing.add(names[i]);
+                    sb.append("{{").append(names[i]).append("}}");
+                } else {
+                    sb.append(value);
+                }
+                sb.append(literals[i + 1]);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Requisição pronta para o HttpClientService: headers já em pares nome/valor
+    public static class Rendered {
+        String method;
+        String url;
+        List<String[]> headers = new ArrayList<>();
+        String bodyType;
+        String rawBody;
+        List<HttpClientService.FormField> fields = new ArrayList<>();
+        Set<String> missing = new LinkedHashSet<>();
+
+        // Sem variáveis: só separa os headers
+        public static Rendered of(HistoryEntry entry) {
+            Rendered rendered = new Rendered();
+            rendered.method = entry.method;
+            rendered.url = entry.url.strip();
+            rendered.headers = HttpClientService.parseHeaders(entry.headers);
+            rendered.bodyType = entry.bodyType;
+            rendered.rawBody = entry.rawBody;
+            rendered.fields = entry.fields;
+            return rendered;
+        }
+
+        public HistoryEntry toEntry() {
+            StringBuilder sb = new StringBuilder();
+            for (String[] header : headers) {
+                sb.append(sb.length() > 0 ? "\n" : "").append(header[0]).append(": ").append(header[1]);
+            }
+            return new HistoryEntry(method, url, sb.toString(), bodyType, rawBody, fields);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+
+// Tempos de uma requisição, do montar o corpo até gravar no histórico. Cada etapa fica em -1 até ser medida.
+public class RequestTiming {
+
+    long startNanos;
+    long buildNanos = -1;
+    long firstByteNanos = -1;
+    long downloadNanos = -1;
+    long totalNanos = -1;
+    long bytesOut = -1;
+    long bytesIn = -1;
+    long bytesDecoded = -1;
+    long bytesUncompressed = -1;
+    volatile long formatNanos = -1;
+    volatile long historyNanos = -1;
+    private GzipBodyPublisher gzipBody;
+    private long sentAt;
+    private volatile long headersAt;
+    private ClientEvents.Exchange event;
+
+    public static RequestTiming start(String method, String url) {
+        RequestTiming timing = new RequestTiming();
+        if (ClientEvents.enabled()) {
+            timing.event = new ClientEvents.Exchange();
+            timing.event.method = method;
+            timing.event.url = url;
+            timing.event.begin();
+        }
+        timing.startNanos = System.nanoTime();
+        return timing;
+    }
+
+    public void built(HttpRequest request) {
+        sentAt = System.nanoTime();
+        buildNanos = sentAt - startNanos;
+        bytesOut = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+        if (request.bodyPublisher().orElse(null) instanceof GzipBodyPublisher gzip) {
+            gzipBody = gzip;
+        }
+    }
+
+    // Os headers chegam quando o HttpClient pede o BodySubscriber: é o nosso "primeiro byte"
+    public <T> HttpResponse.BodyHandler<T> track(HttpResponse.BodyHandler<T> handler) {
+        return info -> {
+            headersAt = System.nanoTime();
+            firstByteNanos = headersAt - sentAt;
+            return handler.apply(info);
+        };
+    }
+
+    public void finished(HttpResponse<ResponseBody> response) {
+        long now = System.nanoTime();
+        downloadNanos = now - headersAt;
+        totalNanos = now - startNanos;
+        bytesIn = response.body().encodedSize();
+        bytesDecoded = response.body().size();
+        if (gzipBody != null) {
+            bytesOut = gzipBody.bytesOut();
+            bytesUncompressed = gzipBody.bytesIn();
+        }
+        if (event != null) {
+            event.status = response.statusCode();
+            event.bytesOut = bytesOut;
+            event.bytesIn = bytesIn;
+            event.bytesDecoded = bytesDecoded;
+            event.buildNanos = buildNanos;
+            event.firstByteNanos = firstByteNanos;
+            event.downloadNanos = downloadNanos;
+            event.commit();
+        }
+    }
+
+    // Servido do cache sem ir à rede
+    public void fromCache() {
+        totalNanos = System.nanoTime() - startNanos;
+        bytesIn = 0;
+        bytesOut = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        row(sb, "Build request", buildNanos, null);
+        row(sb, "Time to first byte", firstByteNanos, null);
+        row(sb, "Download", downloadNanos, bytesIn < 0 || downloadNanos <= 0 ? null
+                : TransferListener.humanBytes((long) (bytesIn / (downloadNanos / 1_000_000_000.0))) + "/s");
+        row(sb, "Total", totalNanos, null);
+        row(sb, "Format", formatNanos, null);
+        row(sb, "History write", historyNanos, null);
+        sb.append(String.format(Locale.ROOT, "%n%-20s %12s", "Sent", bytesOut < 0 ? "streamed"
+                : TransferListener.humanBytes(bytesOut)));
+        if (bytesUncompressed >= 0) {
+            sb.append("  (gzip, ").append(TransferListener.humanBytes(bytesUncompressed)).append(" uncompressed)");
+        }
+        sb.append(String.format(Locale.ROOT, "%n%-20s %12s", "Received", bytesIn < 0 ? "-"
+                : TransferListener.humanBytes(bytesIn)));
+        if (bytesDecoded >= 0 && bytesDecoded != bytesIn) {
+            sb.append("  (").append(TransferListener.humanBytes(bytesDecoded)).append(" decoded)");
+        }
+        return sb.append("\n").toString();
+    }
+
+    private static void row(StringBuilder sb, String label, long nanos, String note) {
+        sb.append(String.format(Locale.ROOT, "%-20s %12s", label, nanos < 0 ? "-"
+                : String.format(Locale.ROOT, "%.2f ms", nanos / 1_000_000.0)));
+        if (note != null) {
+            sb.append("  (").append(note).append(")");
+        }
+        sb.append("\n");
+    }
+}
@@ -0,0 +1,327 @@
+import java.io.*;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+public class ResponseBody {
+
+    private static final long REPORT_INTERVAL_NANOS = 100_000_000L;
+    // Maior array que a JVM aloca com segurança; threshold acima disso vale como este limite
+    static final long MAX_MEMORY_BYTES = Integer.MAX_VALUE - 8;
+    // Arquivos ainda não descartados; o que sobrar é apagado na saída (deleteOnExit guardaria todos para sempre)
+    private static final Set<Path> SPILLED = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Path file : SPILLED) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // ainda mapeado (Windows), fica para o sistema limpar
+                }
+            }
+        }));
+    }
+
+    private byte[] memory = new byte[0];
+    private int memoryCount;
+    private Path spillFile;
+    private long size;
+    private long encodedSize;
+    private String encoding;
+    private Charset charset = StandardCharsets.UTF_8;
+    private boolean ownsFile = true;
+
+    private ResponseBody() {
+    }
+
+    // Corpo lido de um arquivo que pertence a outro (cache): discard não apaga o arquivo
+    static ResponseBody ofFile(Path file, long size, Charset charset) {
+        ResponseBody body = new ResponseBody();
+        body.spillFile = file;
+        body.size = size;
+        body.encodedSize = size;
+        body.charset = charset;
+        body.ownsFile = false;
+        return body;
+    }
+
+    // Mantém até threshold bytes em memória e grava o restante em um arquivo temporário. Corpos gzip/deflate
+    // são descompactados enquanto chegam; o progresso é contado em bytes recebidos (os do Content-Length).
+    public static HttpResponse.BodyHandler<ResponseBody> handler(long spillThreshold, TransferListener listener) {
+        long threshold = Math.min(spillThreshold, MAX_MEMORY_BYTES);
+        return info -> {
+            long total = info.headers().firstValueAsLong("Content-Length").orElse(-1);
+            Charset charset = charsetOf(info.headers().firstValue("Content-Type").orElse(""));
+            ContentDecoder decoder = ContentDecoder.forEncoding(info.headers().firstValue("Content-Encoding")
+                    .orElse(""));
+            return new Subscriber(threshold, total, charset, decoder,
+                    listener == null ? TransferListener.NONE : listener);
+        };
+    }
+
+    // Tamanho já descompactado
+    public long size() {
+        return size;
+    }
+
+    // Tamanho como veio da rede
+    public long encodedSize() {
+        return encodedSize;
+    }
+
+    // "gzip" ou "deflate" se o corpo foi descompactado, null se veio sem compressão
+    public String encoding() {
+        return encoding;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    public Path spillFile() {
+        return spillFile;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    public String text() {
+        return text(Integer.MAX_VALUE);
+    }
+
+    // Decodifica no máximo maxBytes; o restante fica no disco
+    public String text(int maxBytes) {
+        if (spillFile == null) {
+            return decode(memory, Math.min(memoryCount, maxBytes), memoryCount <= maxBytes);
+        }
+        try (InputStream in = openStream()) {
+            byte[] bytes = in.readNBytes((int) Math.min(size, maxBytes));
+            return decode(bytes, bytes.length, size <= maxBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Cortado no limite, um caractere de vários bytes pela metade no final é deixado de fora
+    private String decode(byte[] bytes, int length, boolean complete) {
+        if (complete) {
+            return new String(bytes, 0, length, charset);
+        }
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer out = CharBuffer.allocate((int) (length * (double) decoder.maxCharsPerByte()) + 1);
+        decoder.decode(ByteBuffer.wrap(bytes, 0, length), out, false);
+        return out.flip().toString();
+    }
+
+    public InputStream openStream() throws IOException {
+        if (spillFile == null) {
+            return new ByteArrayInputStream(memory, 0, memoryCount);
+        }
+        return new BufferedInputStream(Files.newInputStream(spillFile));
+    }
+
+    // Visão somente leitura do corpo sem copiar: o array em memória ou o arquivo mapeado em segmentos
+    public List<ByteBuffer> map(int segmentSize) throws IOException {
+        if (spillFile == null) {
+            return List.of(ByteBuffer.wrap(memory, 0, memoryCount).slice().asReadOnlyBuffer());
+        }
+        List<ByteBuffer> segments = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            for (long position = 0; position < size; position += segmentSize) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize,
+                        size - position)));
+            }
+        }
+        return segments;
+    }
+
+    public void saveTo(Path target) throws IOException {
+        if (spillFile == null) {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                out.write(memory, 0, memoryCount);
+            }
+            return;
+        }
+        try (FileChannel in = FileChannel.open(spillFile, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    public void discard() {
+        memory = new byte[0];
+        memoryCount = 0;
+        if (spillFile != null && ownsFile) {
+            try {
+                Files.deleteIfExists(spillFile);
+                SPILLED.remove(spillFile);
+            } catch (IOException e) {
+                // No Windows o arquivo não pode ser apagado enquanto ainda estiver mapeado; fica para a saída
+            }
+        }
+    }
+
+    static Charset charsetOf(String contentType) {
+        for (String param : contentType.split(";")) {
+            String[] kv = param.trim().split("=", 2);
+            if (kv.length == 2 && kv[0].trim().equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(kv[1].trim().replace("\"", ""));
+                } catch (Exception e) {
+                    // Charset desconhecido, usa o padrão
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static class Subscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+        private final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+        private final ResponseBody body = new ResponseBody();
+        private final long threshold;
+        private final long total;
+        private final TransferListener listener;
+        private final ContentDecoder decoder;
+        private final long start = System.nanoTime();
+        private long lastReport;
+        private Flow.Subscription subscription;
+        private FileChannel channel;
+
+        Subscriber(long threshold, long total, Charset charset, ContentDecoder decoder, TransferListener listener) {
+            this.threshold = threshold;
+            this.total = total;
+            this.decoder = decoder;
+            this.listener = listener;
+            body.charset = charset;
+            body.encoding = decoder == null ? null : decoder.encoding();
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    body.encodedSize += buffer.remaining();
+                    if (decoder != null) {
+                        decoder.decode(buffer, this::write);
+                    } else {
+                        write(buffer);
+                    }
+                }
+                long now = System.nanoTime();
+                if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+                    lastReport = now;
+                    listener.onProgress(body.encodedSize, total, now - start);
+                }
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+                onError(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (decoder != null) {
+                decoder.end();
+            }
+            closeChannel();
+            body.discard();
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (decoder != null) {
+                try {
+                    decoder.finish();
+                } catch (IOException e) {
+                    onError(e);
+                    return;
+                }
+            }
+            closeChannel();
+            body.memory = Arrays.copyOf(body.memory, body.memoryCount);
+            listener.onProgress(body.encodedSize, total, System.nanoTime() - start);
+            result.complete(body);
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            body.size += buffer.remaining();
+            if (channel == null && body.memoryCount + buffer.remaining() > threshold) {
+                spill();
+            }
+            if (channel != null) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } else {
+                append(buffer);
+            }
+        }
+
+        private void append(ByteBuffer buffer) {
+            int needed = body.memoryCount + buffer.remaining();
+            if (needed > body.memory.length) {
+                body.memory = Arrays.copyOf(body.memory, (int) Math.min(threshold,
+                        Math.max(needed, Math.max(8192, body.memory.length * 2L))));
+            }
+            int length = buffer.remaining();
+            buffer.get(body.memory, body.memoryCount, length);
+            body.memoryCount += length;
+        }
+
+        private void spill() throws IOException {
+            body.spillFile = Files.createTempFile("http-body", ".tmp");
+            SPILLED.add(body.spillFile);
+            channel = FileChannel.open(body.spillFile, StandardOpenOption.WRITE);
+            ByteBuffer pending = ByteBuffer.wrap(body.memory, 0, body.memoryCount);
+            while (pending.hasRemaining()) {
+                channel.write(pending);
+            }
+            body.memory = new byte[0];
+            body.memoryCount = 0;
+        }
+
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Cache de respostas em disco para GETs que o servidor permite revalidar (ETag / Last-Modified) ou que
+// trazem max-age. Cada entrada são dois arquivos, <chave>.meta e <chave>.body; a chave inclui os headers
+// listados em Vary e o Authorization (outra credencial nunca recebe a resposta da anterior). A ordem de uso
+// (LRU) fica na data de modificação do .meta, então sobrevive ao restart.
+public class ResponseCache {
+
+    // Headers de um 304 que substituem os guardados
+    private static final Set<String> REFRESHED_HEADERS = Set.of("cache-control", "date", "etag", "expires",
+            "last-modified", "vary");
+
+    private final Path dir;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, List<String>> varyByUrl = new HashMap<>();
+    private long totalBytes;
+
+    public ResponseCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+        List<Entry> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path meta : files.filter(f -> f.toString().endsWith(".meta")).toList()) {
+                try {
+                    loaded.add(read(meta));
+                } catch (IOException | RuntimeException e) {
+                    delete(meta.getFileName().toString().replace(".meta", ""));
+                }
+            }
+        }
+        loaded.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (Entry entry : loaded) {
+            entries.put(entry.key, entry);
+            varyByUrl.put(entry.url, entry.vary);
+            totalBytes += entry.bodySize;
+        }
+        evict();
+    }
+
+    public synchronized Entry lookup(HttpRequest request) {
+        if (!request.method().equals("GET") || requestCacheControl(request).contains("no-store")) {
+            return null;
+        }
+        String url = request.uri().toString();
+        Entry entry = entries.get(key(url, varyByUrl.getOrDefault(url, List.of()), request.headers()));
+        if (entry != null) {
+            touch(entry);
+        }
+        return entry;
+    }
+
+    // O Cache-Control do pedido também conta: no-cache (ou Pragma: no-cache) força a revalidação e um
+    // max-age menor encurta a validade
+    public static boolean isFresh(Entry entry, HttpRequest request) {
+        String cacheControl = requestCacheControl(request);
+        long maxAge = entry.maxAgeSeconds;
+        if (cacheControl.contains("no-cache")) {
+            return false;
+        }
+        if (cacheControl.contains("max-age")) {
+            maxAge = Math.min(maxAge, maxAge(cacheControl));
+        }
+        return maxAge > 0 && System.currentTimeMillis() - entry.storedAt < maxAge * 1000;
+    }
+
+    private static String requestCacheControl(HttpRequest request) {
+        return (String.join(",", request.headers().allValues("Cache-Control")) + ","
+                + String.join(",", request.headers().allValues("Pragma"))).toLowerCase(Locale.ROOT);
+    }
+
+    // Repete o pedido com If-None-Match / If-Modified-Since, a não ser que o usuário já tenha colocado
+    public static HttpRequest conditional(HttpRequest request, Entry entry) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (entry.etag != null && request.headers().firstValue("If-None-Match").isEmpty()) {
+            builder.header("If-None-Match", entry.etag);
+        }
+        if (entry.lastModified != null && request.headers().firstValue("If-Modified-Since").isEmpty()) {
+            builder.header("If-Modified-Since", entry.lastModified);
+        }
+        return builder.build();
+    }
+
+    // Guarda a resposta se ela puder ser revalidada depois; devolve false se não for cacheável
+    public boolean store(HttpRequest request, HttpResponse<ResponseBody> response) throws IOException {
+        HttpHeaders headers = response.headers();
+        String cacheControl = String.join(",", headers.allValues("Cache-Control")).toLowerCase(Locale.ROOT);
+        List<String> vary = new ArrayList<>();
+        for (String value : headers.allValues("Vary")) {
+            for (String name : value.split(",")) {
+                if (!name.isBlank()) {
+                    vary.add(name.strip().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        long maxAge = maxAge(cacheControl);
+        boolean validatable = headers.firstValue("ETag").isPresent() || headers.firstValue("Last-Modified")
+                .isPresent();
+        if (!request.method().equals("GET") || response.statusCode() != 200 || cacheControl.contains("no-store")
+                || requestCacheControl(request).contains("no-store") || vary.contains("*")
+                || (!validatable && maxAge <= 0) || response.body().size() > maxBytes / 4) {
+            return false;
+        }
+        Entry entry = new Entry();
+        entry.url = request.uri().toString();
+        entry.vary = vary;
+        entry.key = key(entry.url, vary, request.headers());
+        entry.status = response.statusCode();
+        entry.headers = new TreeMap<>(headers.map());
+        if (response.body().encoding() != null) {
+            // O corpo guardado já foi descompactado: os headers têm que descrever esse corpo
+            entry.headers.keySet().removeIf(name -> name.equalsIgnoreCase("Content-Encoding")
+                    || name.equalsIgnoreCase("Content-Length"));
+            entry.headers.put("Content-Length", List.of(String.valueOf(response.body().size())));
+        }
+        entry.etag = headers.firstValue("ETag").orElse(null);
+        entry.lastModified = headers.firstValue("Last-Modified").orElse(null);
+        entry.maxAgeSeconds = cacheControl.contains("no-cache") ? 0 : maxAge;
+        entry.storedAt = System.currentTimeMillis();
+        entry.lastUsed = entry.storedAt;
+        entry.charset = response.body().charset().name();
+        entry.bodySize = response.body().size();
+
+        // Grava em temporários e troca de uma vez, para nunca deixar .meta apontando para um .body incompleto
+        Path body = Files.createTempFile(dir, entry.key, ".tmp");
+        response.body().saveTo(body);
+        Path meta = Files.createTempFile(dir, entry.key, ".tmp");
+        write(entry, meta);
+        synchronized (this) {
+            remove(entry.key);
+            Files.move(body, bodyFile(entry.key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(meta, metaFile(entry.key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entries.put(entry.key, entry);
+            varyByUrl.put(entry.url, vary);
+            totalBytes += entry.bodySize;
+            evict();
+        }
+        return true;
+    }
+
+    // O servidor respondeu 304: a entrada continua válida com os headers novos
+    public synchronized Entry revalidated(Entry entry, HttpResponse<?> notModified) throws IOException {
+        notModified.headers().map().forEach((name, values) -> {
+            if (REFRESHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                entry.headers.keySet().removeIf(existing -> existing.equalsIgnoreCase(name));
+                entry.headers.put(name, values);
+            }
+        });
+        entry.etag = notModified.headers().firstValue("ETag").orElse(entry.etag);
+        entry.lastModified = notModified.headers().firstValue("Last-Modified").orElse(entry.lastModified);
+        String cacheControl = String.join(",", notModified.headers().allValues("Cache-Control"))
+                .toLowerCase(Locale.ROOT);
+        if (!cacheControl.isEmpty()) {
+            entry.maxAgeSeconds = cacheControl.contains("no-cache") ? 0 : maxAge(cacheControl);
+        }
+        entry.storedAt = System.currentTimeMillis();
+        Path meta = Files.createTempFile(dir, entry.key, ".tmp");
+        write(entry, meta);
+        Files.move(meta, metaFile(entry.key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entry;
+    }
+
+    public ResponseBody body(Entry entry) {
+        return ResponseBody.ofFile(bodyFile(entry.key), entry.bodySize, ResponseBody.charsetOf("charset="
+                + entry.charset));
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            remove(key);
+        }
+        varyByUrl.clear();
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.bodySize;
+            delete(entry.key);
+        }
+    }
+
+    private void remove(String key) {
+        Entry existing = entries.remove(key);
+        if (existing != null) {
+            totalBytes -= existing.bodySize;
+            delete(key);
+        }
+    }
+
+    private void touch(Entry entry) {
+        entry.lastUsed = System.currentTimeMillis();
+        try {
+            Files.setLastModifiedTime(metaFile(entry.key), FileTime.fromMillis(entry.lastUsed));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void delete(String key) {
+        for (Path file : List.of(metaFile(key), bodyFile(key))) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // No Windows o corpo pode estar mapeado pelo visualizador
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private Path metaFile(String key) {
+        return dir.resolve(key + ".meta");
+    }
+
+    private Path bodyFile(String key) {
+        return dir.resolve(key + ".body");
+    }
+
+    private static long maxAge(String cacheControl) {
+        for (String directive : cacheControl.split(",")) {
+            String[] kv = directive.strip().split("=", 2);
+            if (kv.length == 2 && kv[0].equals("max-age")) {
+                try {
+                    return Long.parseLong(kv[1].strip().replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static String key(String url, List<String> vary, HttpHeaders requestHeaders) {
+        StringBuilder sb = new StringBuilder("GET ").append(url);
+        List<String> authorization = requestHeaders.allValues("Authorization");
+        if (!authorization.isEmpty()) {
+            sb.append("\nauthorization: ").append(String.join(", ", authorization));
+        }
+        for (String name : vary) {
+            sb.append('\n').append(name).append(": ").append(String.join(", ", requestHeaders.allValues(name)));
+        }
+        return String.format("%016x", HistoryEntry.hash(sb.toString()));
+    }
+
+    private static void write(Entry entry, Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("url", entry.url);
+        properties.setProperty("status", String.valueOf(entry.status));
+        properties.setProperty("vary", String.join(",", entry.vary));
+        properties.setProperty("storedAt", String.valueOf(entry.storedAt));
+        properties.setProperty("maxAge", String.valueOf(entry.maxAgeSeconds));
+        properties.setProperty("charset", entry.charset);
+        properties.setProperty("bodySize", String.valueOf(entry.bodySize));
+        if (entry.etag != null) {
+            properties.setProperty("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            properties.setProperty("lastModified", entry.lastModified);
+        }
+        int i = 0;
+        for (Map.Entry<String, List<String>> header : entry.headers.entrySet()) {
+            for (String value : header.getValue()) {
+                properties.setProperty("header." + i++, header.getKey() + ": " + value);
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+
+    private static Entry read(Path meta) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Entry entry = new Entry();
+        String name = meta.getFileName().toString();
+        entry.key = name.substring(0, name.length() - ".meta".length());
+        entry.url = properties.getProperty("url");
+        entry.status = Integer.parseInt(properties.getProperty("status"));
+        String vary = properties.getProperty("vary", "");
+        entry.vary = vary.isEmpty() ? List.of() : List.of(vary.split(","));
+        entry.storedAt = Long.parseLong(properties.getProperty("storedAt"));
+        entry.maxAgeSeconds = Long.parseLong(properties.getProperty("maxAge", "0"));
+        entry.charset = properties.getProperty("charset", "UTF-8");
+        entry.bodySize = Long.parseLong(properties.getProperty("bodySize"));
+        entry.etag = properties.getProperty("etag");
+        entry.lastModified = properties.getProperty("lastModified");
+        entry.headers = new TreeMap<>();
+        for (int i = 0; properties.containsKey("header." + i); i++) {
+            String[] header = properties.getProperty("header." + i).split(": ", 2);
+            entry.headers.computeIfAbsent(header[0], k -> new ArrayList<>()).add(header.length > 1 ? header[1] : "");
+        }
+        entry.lastUsed = Files.getLastModifiedTime(meta).toMillis();
+        if (Files.size(meta.resolveSibling(entry.key + ".body")) != entry.bodySize) {
+            throw new IOException("Body size mismatch for " + entry.url);
+        }
+        return entry;
+    }
+
+    public static class Entry {
+        String key;
+        String url;
+        List<String> vary;
+        int status;
+        Map<String, List<String>> headers;
+        String etag;
+        String lastModified;
+        long maxAgeSeconds;
+        long storedAt;
+        long lastUsed;
+        String charset;
+        long bodySize;
+    }
+}
@@ -0,0 +1,357 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Texto somente leitura sobre bytes mapeados (ou um array em memória), sem nunca decodificar o
+// conteúdo inteiro. O índice de linhas guarda só pontos de controle (a cada 64 linhas ou 64 KB), então
+// ocupa poucos MB mesmo para 1 GB; a posição de uma linha sai do ponto anterior mais uma varredura curta.
+public class ResponseDocument implements Closeable {
+
+    static final int SEGMENT_SIZE = 1 << 30;
+    private static final int CHECKPOINT_LINES = 64;
+    private static final int CHECKPOINT_BYTES = 64 * 1024;
+
+    private final List<ByteBuffer> segments;
+    private final long size;
+    private final Charset charset;
+    private final Path ownedFile;
+
+    // Pontos de controle: checkpointLines[i] começa em checkpointOffsets[i]; publicados via volatile
+    private volatile long[] checkpointOffsets = new long[1024];
+    private volatile int[] checkpointLines = new int[1024];
+    private volatile int checkpoints;
+    private volatile int lines; // linhas completas conhecidas até agora
+    private volatile long indexedBytes;
+    private volatile boolean indexed;
+    private volatile long longestLine;
+    private long matches = -1; // só em documentos gerados por filter
+
+    private ResponseDocument(List<ByteBuffer> segments, long size, Charset charset, Path ownedFile) {
+        this.segments = segments;
+        this.size = size;
+        this.charset = charset;
+        this.ownedFile = ownedFile;
+        checkpointOffsets[0] = 0;
+        checkpointLines[0] = 0;
+        checkpoints = 1;
+    }
+
+    public static ResponseDocument of(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ResponseDocument document = new ResponseDocument(List.of(ByteBuffer.wrap(bytes)), bytes.length,
+                StandardCharsets.UTF_8, null);
+        document.index();
+        return document;
+    }
+
+    // Usa os bytes do corpo como estão; charsets em que '\n' não é um byte só (UTF-16...) são convertidos
+    // para um arquivo temporário em UTF-8
+    public static ResponseDocument of(ResponseBody body) throws IOException {
+        byte[] newline = "\n".getBytes(body.charset());
+        byte[] letter = "a".getBytes(body.charset());
+        if (newline.length == 1 && newline[0] == '\n' && letter.length == 1) {
+            return new ResponseDocument(body.map(SEGMENT_SIZE), body.size(), body.charset(), null);
+        }
+        Path file = Files.createTempFile("eldhttp-text", ".txt");
+        try (Reader reader = new InputStreamReader(body.openStream(), body.charset());
+                Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            reader.transferTo(writer);
+        }
+        return map(file, StandardCharsets.UTF_8);
+    }
+
+    // JSON indentado, gerado uma única vez em streaming; corpos pequenos ficam em memória
+    public static ResponseDocument pretty(ResponseBody body) throws IOException {
+        try (Reader reader = new InputStreamReader(body.openStream(), body.charset())) {
+            if (!body.isSpilled()) {
+                StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE / 2, body.size() * 2));
+                JsonPrettyPrinter.format(reader, sb, Long.MAX_VALUE);
+                byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                return new ResponseDocument(List.of(ByteBuffer.wrap(bytes)), bytes.length, StandardCharsets.UTF_8,
+                        null);
+            }
+            Path file = Files.createTempFile("eldhttp-pretty", ".json");
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                JsonPrettyPrinter.format(reader, writer, Long.MAX_VALUE);
+            }
+            return map(file, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Resultados de um JSONPath, um por linha, avaliados em streaming sobre o corpo: só os valores
+    // encontrados passam por String. Corpos que foram para o disco geram o resultado em disco também.
+    public static ResponseDocument filter(ResponseBody body, JsonPath path) throws IOException {
+        Path file = body.isSpilled() ? Files.createTempFile("eldhttp-filter", ".json") : null;
+        StringBuilder memory = file == null ? new StringBuilder() : null;
+        long count;
+        boolean done = false;
+        try (Reader reader = new InputStreamReader(body.openStream(), body.charset());
+                Writer writer = file == null ? null : Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            Appendable out = file == null ? memory : writer;
+            count = path.evaluate(reader, value -> {
+                try {
+                    out.append(value).append('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return !Thread.currentThread().isInterrupted();
+            });
+            done = true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (!done && file != null) {
+                Files.deleteIfExists(file);
+            }
+        }
+        ResponseDocument document;
+        if (file == null) {
+            byte[] bytes = memory.toString().getBytes(StandardCharsets.UTF_8);
+            document = new ResponseDocument(List.of(ByteBuffer.wrap(bytes)), bytes.length, StandardCharsets.UTF_8,
+                    null);
+        } else {
+            document = map(file, StandardCharsets.UTF_8);
+        }
+        document.matches = count;
+        return document;
+    }
+
+    private static ResponseDocument map(Path file, Charset charset) throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            for (long position = 0; position < size; position += SEGMENT_SIZE) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_SIZE, size - position)));
+            }
+        }
+        return new ResponseDocument(segments, size, charset, file);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Quantos resultados o filtro encontrou; -1 se não é um documento filtrado
+    public long matches() {
+        return matches;
+    }
+
+    public int lines() {
+        return lines;
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    public long indexedBytes() {
+        return indexedBytes;
+    }
+
+    public long longestLine() {
+        return longestLine;
+    }
+
+    // Varre o conteúdo uma vez, publicando o progresso; roda fora da EDT
+    public void index() {
+        long lineStart = 0;
+        long lastCheckpoint = 0;
+        int line = 0;
+        long longest = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            ByteBuffer segment = segments.get(s);
+            long base = (long) s * SEGMENT_SIZE;
+            int limit = segment.limit();
+            for (int i = 0; i < limit; i++) {
+                if (segment.get(i) != '\n') {
+                    continue;
+                }
+                longest = Math.max(longest, base + i - lineStart);
+                lineStart = base + i + 1;
+                line++;
+                if (line % CHECKPOINT_LINES == 0 || lineStart - lastCheckpoint >= CHECKPOINT_BYTES) {
+                    addCheckpoint(lineStart, line);
+                    lastCheckpoint = lineStart;
+                    longestLine = longest;
+                    lines = line;
+                    indexedBytes = lineStart;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        }
+        if (lineStart < size || size == 0) {
+            longest = Math.max(longest, size - lineStart);
+            line++; // última linha sem '\n'
+        }
+        longestLine = longest;
+        lines = line;
+        indexedBytes = size;
+        indexed = true;
+    }
+
+    private void addCheckpoint(long offset, int line) {
+        int count = checkpoints;
+        long[] offsets = checkpointOffsets;
+        int[] numbers = checkpointLines;
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            numbers = Arrays.copyOf(numbers, count * 2);
+        }
+        offsets[count] = offset;
+        numbers[count] = line;
+        checkpointOffsets = offsets;
+        checkpointLines = numbers;
+        checkpoints = count + 1;
+    }
+
+    // Offset do início da linha: ponto de controle anterior + contagem de '\n'
+    public long lineStart(int line) {
+        int count = checkpoints;
+        int[] numbers = checkpointLines;
+        long[] offsets = checkpointOffsets;
+        int found = Arrays.binarySearch(numbers, 0, count, line);
+        int checkpoint = found >= 0 ? found : -found - 2;
+        long position = offsets[checkpoint];
+        for (int current = numbers[checkpoint]; current < line && position < size; current++) {
+            position = indexOf((byte) '\n', position, size) + 1;
+            if (position == 0) {
+                return size;
+            }
+        }
+        return position;
+    }
+
+    // Linha que contém o offset (o índice precisa já ter passado por ele)
+    public int lineOf(long offset) {
+        int count = checkpoints;
+        long[] offsets = checkpointOffsets;
+        int found = Arrays.binarySearch(offsets, 0, count, offset);
+        int checkpoint = found >= 0 ? found : -found - 2;
+        int line = checkpointLines[checkpoint];
+        long position = offsets[checkpoint];
+        while (true) {
+            long newline = indexOf((byte) '\n', position, offset);
+            if (newline < 0) {
+                return line;
+            }
+            line++;
+            position = newline + 1;
+        }
+    }
+
+    // Trecho visível da linha: a partir da coluna (em bytes) e com no máximo maxChars caracteres
+    public String line(int line, long column, int maxChars) {
+        long start = lineStart(line);
+        return slice(start, column, maxChars);
+    }
+
+    String slice(long start, long column, int maxChars) {
+        long from = Math.min(start + column, size);
+        long windowEnd = Math.min(size, from + (long) maxChars * 4);
+        long newline = indexOf((byte) '\n', start, windowEnd);
+        if (newline >= 0 && newline < from) {
+            return "";
+        }
+        long end = newline >= 0 ? newline : windowEnd;
+        if (end > from && byteAt(end - 1) == '\r') {
+            end--;
+        }
+        String text = decode(from, end);
+        if (text.length() > maxChars) {
+            text = text.substring(0, maxChars);
+        }
+        return text.indexOf('\t') >= 0 ? text.replace('\t', ' ') : text;
+    }
+
+    // Fim da linha que começa em start, sem o '\n'
+    public long lineEnd(long start) {
+        long newline = indexOf((byte) '\n', start, size);
+        return newline < 0 ? size : newline;
+    }
+
+    public String text(long from, long to) {
+        return decode(from, to);
+    }
+
+    // Busca ASCII sem diferenciar maiúsculas a partir de from; -1 se não achar
+    public long find(String query, long from) {
+        byte[] needle = query.toLowerCase(Locale.ROOT).getBytes(charset);
+        if (needle.length == 0) {
+            return -1;
+        }
+        long last = size - needle.length;
+        for (long position = Math.max(0, from); position <= last; position++) {
+            if (lower(byteAt(position)) != needle[0]) {
+                continue;
+            }
+            int i = 1;
+            while (i < needle.length && lower(byteAt(position + i)) == needle[i]) {
+                i++;
+            }
+            if (i == needle.length) {
+                return position;
+            }
+            if ((position & 0xFFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    private byte byteAt(long position) {
+        return segments.get((int) (position / SEGMENT_SIZE)).get((int) (position % SEGMENT_SIZE));
+    }
+
+    private long indexOf(byte value, long from, long to) {
+        for (long position = from; position < to; position++) {
+            if (byteAt(position) == value) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private String decode(long from, long to) {
+        int length = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(0, to - from));
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = from + copied;
+            ByteBuffer segment = segments.get((int) (position / SEGMENT_SIZE));
+            int offset = (int) (position % SEGMENT_SIZE);
+            int n = Math.min(length - copied, segment.limit() - offset);
+            segment.get(offset, bytes, copied, n);
+            copied += n;
+        }
+        return new String(bytes, charset);
+    }
+
+    @Override
+    public void close() {
+        if (ownedFile != null) {
+            try {
+                Files.deleteIfExists(ownedFile);
+            } catch (IOException e) {
+                // No Windows o arquivo não pode ser apagado enquanto ainda estiver mapeado
+                ownedFile.toFile().deleteOnExit();
+            }
+        }
+    }
+}
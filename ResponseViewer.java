@@ -0,0 +1,532 @@
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+
+// Visualizador de resposta que desenha só as linhas visíveis de um ResponseDocument. As barras de
+// rolagem andam em linhas e colunas (não em pixels), então 1 GB com milhões de linhas continua leve.
+// A versão indentada do JSON é gerada uma vez por resposta e fica guardada para alternar com a crua.
+public class ResponseViewer extends JPanel {
+
+    private static final long PRETTY_AUTO_LIMIT = 64L * 1024 * 1024;
+    private static final long COPY_LIMIT = 16L * 1024 * 1024;
+    private static final int MAX_COLUMNS = 1 << 24;
+    private static final int REFRESH_MS = 200;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final JTextArea headArea = new JTextArea(6, 40);
+    private final LinesView canvas = new LinesView();
+    private final JScrollBar verticalBar = new JScrollBar(JScrollBar.VERTICAL);
+    private final JScrollBar horizontalBar = new JScrollBar(JScrollBar.HORIZONTAL);
+    private final JToggleButton prettyButton = new JToggleButton("Pretty");
+    private final JTextField filterField = new JTextField(16);
+    private final JTextField findField = new JTextField(14);
+    private final JTextField lineField = new JTextField(6);
+    private final JLabel infoLabel = new JLabel(" ");
+    private final Timer refresh = new Timer(REFRESH_MS, e -> refresh());
+
+    private ResponseBody body;
+    private ResponseDocument raw;
+    private ResponseDocument pretty;
+    private ResponseDocument filtered;
+    private String filteredBy;
+    private Future<?> filterTask;
+    private int filterGeneration;
+    private CompletableFuture<ResponseDocument> prettyTask;
+    private ResponseDocument document;
+    private Future<?> indexTask;
+    private Future<?> findTask;
+    private int generation;
+    private int selectionAnchor = -1;
+    private int selectionEnd = -1;
+    private long matchOffset = -1;
+    private int matchLength;
+    private LongConsumer formatListener = nanos -> {
+    };
+
+    public ResponseViewer() {
+        super(new BorderLayout());
+        headArea.setEditable(false);
+        headArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        bar.add(prettyButton);
+        bar.add(new JLabel("Filter"));
+        bar.add(filterField);
+        bar.add(new JLabel("Find"));
+        bar.add(findField);
+        bar.add(new JLabel("Line"));
+        bar.add(lineField);
+        bar.add(infoLabel);
+        prettyButton.setEnabled(false);
+        filterField.setEnabled(false);
+        filterField.setToolTipText("<html>JSONPath evaluated over the body as it is read, Enter to apply, "
+                + "empty to clear<br>$.items[*].id &nbsp; $..name &nbsp; $.items[?(@.price &gt; 10)] &nbsp; $['a b'][0]</html>");
+
+        JPanel bodyPanel = new JPanel(new BorderLayout());
+        bodyPanel.add(bar, BorderLayout.NORTH);
+        bodyPanel.add(canvas, BorderLayout.CENTER);
+        bodyPanel.add(verticalBar, BorderLayout.EAST);
+        bodyPanel.add(horizontalBar, BorderLayout.SOUTH);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(headArea), bodyPanel);
+        split.setResizeWeight(0.15);
+        add(split, BorderLayout.CENTER);
+
+        verticalBar.addAdjustmentListener(e -> canvas.repaint());
+        horizontalBar.addAdjustmentListener(e -> canvas.repaint());
+        canvas.addMouseWheelListener(e -> {
+            JScrollBar target = e.isShiftDown() ? horizontalBar : verticalBar;
+            target.setValue(target.getValue() + e.getWheelRotation() * 3);
+        });
+        canvas.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                canvas.requestFocusInWindow();
+                int line = canvas.lineAt(e.getY());
+                if (document == null || line >= document.lines()) {
+                    return;
+                }
+                if (!e.isShiftDown() || selectionAnchor < 0) {
+                    selectionAnchor = line;
+                }
+                selectionEnd = line;
+                canvas.repaint();
+            }
+        });
+        canvas.addMouseMotionListener(new MouseAdapter() {
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (selectionAnchor >= 0 && document != null) {
+                    selectionEnd = Math.max(0, Math.min(canvas.lineAt(e.getY()), document.lines() - 1));
+                    canvas.repaint();
+                }
+            }
+        });
+
+        prettyButton.addActionListener(e -> showPretty(prettyButton.isSelected()));
+        findField.addActionListener(e -> findNext());
+        filterField.addActionListener(e -> applyFilter());
+        lineField.addActionListener(e -> {
+            try {
+                goToLine(Integer.parseInt(lineField.getText().trim()) - 1);
+            } catch (NumberFormatException ex) {
+                infoLabel.setText("Invalid line");
+            }
+        });
+
+        bind("ctrl F", true, () -> findField.requestFocusInWindow());
+        bind("F3", true, this::findNext);
+        bind("ctrl G", true, () -> lineField.requestFocusInWindow());
+        bind("ctrl C", false, this::copySelection);
+        bind("ctrl A", false, () -> {
+            if (document != null && document.lines() > 0) {
+                selectionAnchor = 0;
+                selectionEnd = document.lines() - 1;
+                canvas.repaint();
+            }
+        });
+        bind("UP", false, () -> verticalBar.setValue(verticalBar.getValue() - 1));
+        bind("DOWN", false, () -> verticalBar.setValue(verticalBar.getValue() + 1));
+        bind("PAGE_UP", false, () -> verticalBar.setValue(verticalBar.getValue() - canvas.rows()));
+        bind("PAGE_DOWN", false, () -> verticalBar.setValue(verticalBar.getValue() + canvas.rows()));
+        bind("ctrl HOME", false, () -> verticalBar.setValue(0));
+        bind("ctrl END", false, () -> verticalBar.setValue(verticalBar.getMaximum()));
+        bind("LEFT", false, () -> horizontalBar.setValue(horizontalBar.getValue() - 4));
+        bind("RIGHT", false, () -> horizontalBar.setValue(horizontalBar.getValue() + 4));
+    }
+
+    // Avisado (na EDT) com o tempo gasto para gerar a versão indentada
+    public void setFormatListener(LongConsumer listener) {
+        formatListener = listener;
+    }
+
+    // Expressão do filtro aplicado (vazia se não houver)
+    public String filterExpression() {
+        return filtered != null ? filteredBy : "";
+    }
+
+    // Mensagens curtas (erros, relatórios) sem corpo associado
+    public void setText(String text) {
+        reset(null);
+        headArea.setText("");
+        setDocument(ResponseDocument.of(text));
+    }
+
+    // Mostra a resposta; o viewer não é dono do corpo, quem chama continua responsável pelo discard
+    public void show(String head, ResponseBody responseBody) {
+        reset(responseBody);
+        headArea.setText(head);
+        headArea.setCaretPosition(0);
+        int current = generation;
+        boolean json = HttpClientService.isJson(responseBody);
+        prettyButton.setEnabled(json);
+        filterField.setEnabled(json);
+        try {
+            raw = ResponseDocument.of(responseBody);
+        } catch (IOException e) {
+            setText("Error: " + e.getMessage());
+            return;
+        }
+        setDocument(raw);
+        if (json && !filterField.getText().isBlank()) {
+            applyFilter(); // o mesmo filtro vale para a próxima resposta
+        } else if (json && responseBody.size() <= PRETTY_AUTO_LIMIT) {
+            prettyButton.setSelected(true);
+            preparePretty(current);
+        }
+    }
+
+    private void reset(ResponseBody responseBody) {
+        generation++;
+        cancel(indexTask);
+        cancel(findTask);
+        cancel(filterTask);
+        if (prettyTask != null) {
+            prettyTask.cancel(true);
+            prettyTask = null;
+        }
+        if (raw != null) {
+            raw.close();
+        }
+        if (pretty != null) {
+            pretty.close();
+        }
+        if (filtered != null) {
+            filtered.close();
+        }
+        raw = null;
+        pretty = null;
+        filtered = null;
+        body = responseBody;
+        prettyButton.setSelected(false);
+        prettyButton.setEnabled(false);
+        filterField.setEnabled(false);
+        matchOffset = -1;
+    }
+
+    private void showPretty(boolean selected) {
+        if (filtered != null) {
+            filterField.setText("");
+            clearFilter();
+        }
+        if (!selected) {
+            setDocument(raw);
+        } else if (pretty != null) {
+            setDocument(pretty);
+        } else {
+            preparePretty(generation);
+        }
+    }
+
+    // Formata uma única vez; alternar depois só troca o documento exibido
+    private void preparePretty(int current) {
+        if (prettyTask != null || body == null) {
+            return;
+        }
+        ResponseBody source = body;
+        infoLabel.setText("Formatting...");
+        long begin = System.nanoTime();
+        prettyTask = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ResponseDocument.pretty(source);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        prettyTask.whenComplete((formatted, error) -> SwingUtilities.invokeLater(() -> {
+            if (current != generation) {
+                if (formatted != null) {
+                    formatted.close();
+                }
+                return;
+            }
+            if (error != null) {
+                infoLabel.setText("Error: " + error.getMessage());
+                prettyButton.setSelected(false);
+                return;
+            }
+            pretty = formatted;
+            formatListener.accept(System.nanoTime() - begin);
+            if (prettyButton.isSelected()) {
+                setDocument(pretty);
+            }
+        }));
+    }
+
+    // Avalia o JSONPath sobre o corpo em segundo plano; vazio volta para a resposta inteira
+    private void applyFilter() {
+        cancel(filterTask);
+        int current = ++filterGeneration;
+        String expression = filterField.getText().strip();
+        if (body == null) {
+            return;
+        }
+        if (expression.isEmpty()) {
+            clearFilter();
+            return;
+        }
+        JsonPath path;
+        try {
+            path = JsonPath.compile(expression);
+        } catch (IllegalArgumentException e) {
+            infoLabel.setText(e.getMessage());
+            return;
+        }
+        int response = generation;
+        ResponseBody source = body;
+        infoLabel.setText("Filtering...");
+        filterTask = executor.submit(() -> {
+            ResponseDocument result;
+            try {
+                result = ResponseDocument.filter(source, path);
+            } catch (IOException | RuntimeException e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (response == generation && current == filterGeneration) {
+                        infoLabel.setText("Filter: " + e.getMessage());
+                    }
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (response != generation || current != filterGeneration) {
+                    result.close();
+                    return;
+                }
+                ResponseDocument previous = filtered;
+                filtered = result;
+                filteredBy = expression;
+                setDocument(result);
+                if (previous != null) {
+                    previous.close();
+                }
+            });
+        });
+    }
+
+    private void clearFilter() {
+        ResponseDocument previous = filtered;
+        filtered = null;
+        if (previous != null) {
+            if (document == previous) {
+                setDocument(prettyButton.isSelected() && pretty != null ? pretty : raw);
+            }
+            previous.close();
+        }
+    }
+
+    private void setDocument(ResponseDocument next) {
+        cancel(indexTask);
+        cancel(findTask);
+        document = next;
+        selectionAnchor = -1;
+        selectionEnd = -1;
+        matchOffset = -1;
+        verticalBar.setValue(0);
+        horizontalBar.setValue(0);
+        if (!next.isIndexed()) {
+            indexTask = executor.submit(next::index);
+        }
+        refresh.start();
+        refresh();
+    }
+
+    // Atualiza barras e contagem enquanto o índice é montado em segundo plano
+    private void refresh() {
+        if (document == null) {
+            refresh.stop();
+            return;
+        }
+        int rows = canvas.rows();
+        int lines = Math.max(1, document.lines());
+        verticalBar.setValues(Math.min(verticalBar.getValue(), lines - 1), Math.min(rows, lines), 0, lines);
+        verticalBar.setBlockIncrement(Math.max(1, rows - 1));
+        int columns = (int) Math.min(MAX_COLUMNS, document.longestLine() + 1);
+        int visibleColumns = canvas.columns();
+        horizontalBar.setValues(Math.min(horizontalBar.getValue(), columns), Math.min(visibleColumns, columns), 0,
+                columns);
+        horizontalBar.setBlockIncrement(Math.max(1, visibleColumns - 1));
+        String size = TransferListener.humanBytes(document.size());
+        if (document.matches() >= 0) {
+            size = document.matches() + " match(es), " + size;
+        }
+        if (document.isIndexed()) {
+            infoLabel.setText(document.lines() + " lines, " + size);
+            refresh.stop();
+        } else if (prettyTask == null || prettyTask.isDone()) {
+            infoLabel.setText(document.lines() + " lines so far (indexing "
+                    + (document.size() == 0 ? 100 : document.indexedBytes() * 100 / document.size()) + "%), " + size);
+        }
+        canvas.repaint();
+    }
+
+    public void goToLine(int line) {
+        if (document == null) {
+            return;
+        }
+        int target = Math.max(0, Math.min(line, document.lines() - 1));
+        verticalBar.setValue(Math.max(0, target - canvas.rows() / 3));
+        selectionAnchor = target;
+        selectionEnd = target;
+        canvas.repaint();
+    }
+
+    // Procura a partir do fim do último resultado (ou da primeira linha visível) em segundo plano
+    private void findNext() {
+        String query = findField.getText();
+        ResponseDocument target = document;
+        if (target == null || query.isEmpty()) {
+            return;
+        }
+        cancel(findTask);
+        long from = matchOffset >= 0 ? matchOffset + 1 : target.lineStart(verticalBar.getValue());
+        infoLabel.setText("Searching...");
+        findTask = executor.submit(() -> {
+            long found = target.find(query, from);
+            if (found < 0 && from > 0) {
+                found = target.find(query, 0); // volta ao início
+            }
+            long offset = found;
+            while (offset >= 0 && !target.isIndexed() && target.indexedBytes() <= offset) {
+                // lineOf precisa que o índice já tenha passado pelo resultado
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            int line = offset >= 0 ? target.lineOf(offset) : -1;
+            SwingUtilities.invokeLater(() -> {
+                if (target != document) {
+                    return;
+                }
+                if (offset < 0) {
+                    infoLabel.setText("Not found: " + query);
+                    return;
+                }
+                matchOffset = offset;
+                matchLength = query.length();
+                goToLine(line);
+                long column = offset - target.lineStart(line);
+                if (column < horizontalBar.getValue() || column >= horizontalBar.getValue() + canvas.columns()) {
+                    horizontalBar.setValue((int) Math.min(MAX_COLUMNS, Math.max(0, column - 10)));
+                }
+                infoLabel.setText("Line " + (line + 1) + ", column " + (column + 1));
+            });
+        });
+    }
+
+    private void copySelection() {
+        if (document == null || selectionAnchor < 0) {
+            return;
+        }
+        int first = Math.min(selectionAnchor, selectionEnd);
+        int last = Math.max(selectionAnchor, selectionEnd);
+        long from = document.lineStart(first);
+        long to = last + 1 < document.lines() ? document.lineStart(last + 1) - 1 : document.size();
+        if (to - from > COPY_LIMIT) {
+            infoLabel.setText("Selection larger than " + TransferListener.humanBytes(COPY_LIMIT)
+                    + ", use Save Body instead");
+            return;
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(document.text(from, to)),
+                null);
+        infoLabel.setText((last - first + 1) + " line(s) copied");
+    }
+
+    // Atalhos globais valem com o foco em qualquer parte do viewer; os de navegação só no texto
+    private void bind(String keyStroke, boolean global, Runnable action) {
+        JComponent owner = global ? this : canvas;
+        owner.getInputMap(global ? WHEN_ANCESTOR_OF_FOCUSED_COMPONENT : WHEN_FOCUSED)
+                .put(KeyStroke.getKeyStroke(keyStroke), keyStroke);
+        owner.getActionMap().put(keyStroke, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    private static void cancel(Future<?> task) {
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    private class LinesView extends JComponent {
+
+        LinesView() {
+            setFont(new Font("Monospaced", Font.PLAIN, 12));
+            setFocusable(true);
+            setBackground(UIManager.getColor("TextArea.background"));
+            setForeground(UIManager.getColor("TextArea.foreground"));
+            setPreferredSize(new Dimension(400, 300));
+        }
+
+        int lineHeight() {
+            return getFontMetrics(getFont()).getHeight();
+        }
+
+        int charWidth() {
+            return Math.max(1, getFontMetrics(getFont()).charWidth('m'));
+        }
+
+        int rows() {
+            return Math.max(1, getHeight() / lineHeight());
+        }
+
+        int columns() {
+            return Math.max(1, getWidth() / charWidth());
+        }
+
+        int lineAt(int y) {
+            return verticalBar.getValue() + y / lineHeight();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground() != null ? getBackground() : Color.WHITE);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            ResponseDocument current = document;
+            if (current == null) {
+                return;
+            }
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            g.setFont(getFont());
+            int lineHeight = metrics.getHeight();
+            int charWidth = charWidth();
+            int first = verticalBar.getValue();
+            int column = horizontalBar.getValue();
+            int columns = columns() + 1;
+            int selectionFirst = Math.min(selectionAnchor, selectionEnd);
+            int selectionLast = Math.max(selectionAnchor, selectionEnd);
+            Color selection = UIManager.getColor("TextArea.selectionBackground");
+            int total = current.lines();
+            for (int row = 0, line = first; row <= rows() && line < total; row++, line++) {
+                int y = row * lineHeight;
+                long start = current.lineStart(line);
+                if (selectionAnchor >= 0 && line >= selectionFirst && line <= selectionLast) {
+                    g.setColor(selection != null ? selection : new Color(184, 207, 229));
+                    g.fillRect(0, y, getWidth(), lineHeight);
+                }
+                if (matchOffset >= start && (line + 1 >= total || matchOffset < current.lineStart(line + 1))) {
+                    int x = (int) (matchOffset - start - column) * charWidth;
+                    g.setColor(new Color(255, 220, 80));
+                    g.fillRect(x, y, matchLength * charWidth, lineHeight);
+                }
+                g.setColor(getForeground() != null ? getForeground() : Color.BLACK);
+                g.drawString(current.slice(start, column, columns), 0, y + metrics.getAscent());
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+import javax.swing.*;
+import javax.swing.text.DefaultCaret;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class StreamDialog extends JDialog {
+
+    // Abre o stream a partir da requisição que está na tela
+    public interface Factory {
+        EventStream open(int capacity, Path logFile) throws IOException;
+    }
+
+    // A tela redesenha no máximo 10 vezes por segundo, não a cada evento
+    private static final int REFRESH_MS = 100;
+    // Teto do texto na tela: os eventos novos são acrescentados e os mais antigos cortados do começo
+    private static final int MAX_SHOWN_CHARS = 2 * 1024 * 1024;
+
+    private final JSpinner capacitySpinner = new JSpinner(new SpinnerNumberModel(500, 10, 100_000, 100));
+    private final JCheckBox logBox = new JCheckBox("Append all events to");
+    private final JTextField logField = new JTextField("events.jsonl", 20);
+    private final JTextArea eventsArea = new JTextArea(25, 90);
+    private final JLabel statsLabel = new JLabel(" ");
+    private final JTextField messageField = new JTextField();
+    private final JButton sendButton = new JButton("Send");
+    private final JButton startButton = new JButton("Start");
+    private final JButton pauseButton = new JButton("Pause");
+    private final JButton stopButton = new JButton("Stop");
+    private final Timer refresh = new Timer(REFRESH_MS, e -> refresh());
+    private EventStream running;
+    private long shownVersion;
+    // Tamanho de cada evento na tela, do mais antigo para o mais novo, para cortar o começo sem reler o texto
+    private final ArrayDeque<Integer> shownLengths = new ArrayDeque<>();
+    private long shownChars;
+
+    public StreamDialog(Frame owner, String title, Factory factory) {
+        super(owner, "Stream - " + title, false);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel params = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        params.add(new JLabel("Keep last"));
+        params.add(capacitySpinner);
+        params.add(new JLabel("events in memory"));
+        params.add(logBox);
+        params.add(logField);
+        JButton browseButton = new JButton("...");
+        params.add(browseButton);
+        add(params, BorderLayout.NORTH);
+
+        eventsArea.setEditable(false);
+        ((DefaultCaret) eventsArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+        eventsArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        add(new JScrollPane(eventsArea), BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel(new BorderLayout(5, 5));
+        JPanel messagePanel = new JPanel(new BorderLayout(5, 5));
+        messagePanel.add(new JLabel("WebSocket message"), BorderLayout.WEST);
+        messagePanel.add(messageField, BorderLayout.CENTER);
+        messagePanel.add(sendButton, BorderLayout.EAST);
+        bottom.add(messagePanel, BorderLayout.NORTH);
+        bottom.add(statsLabel, BorderLayout.CENTER);
+        JPanel buttons = new JPanel();
+        buttons.add(startButton);
+        buttons.add(pauseButton);
+        buttons.add(stopButton);
+        bottom.add(buttons, BorderLayout.EAST);
+        add(bottom, BorderLayout.SOUTH);
+        pauseButton.setEnabled(false);
+        stopButton.setEnabled(false);
+        sendButton.setEnabled(false);
+
+        browseButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File(logField.getText()));
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                logField.setText(chooser.getSelectedFile().getPath());
+                logBox.setSelected(true);
+            }
+        });
+        startButton.addActionListener(e -> start(factory));
+        pauseButton.addActionListener(e -> {
+            if (running == null) {
+                return;
+            }
+            if (pauseButton.getText().equals("Pause")) {
+                running.pause();
+                pauseButton.setText("Resume");
+            } else {
+                running.resume();
+                pauseButton.setText("Pause");
+            }
+        });
+        stopButton.addActionListener(e -> {
+            if (running != null) {
+                running.close();
+            }
+        });
+        sendButton.addActionListener(e -> {
+            if (running != null && running.canSend()) {
+                running.send(messageField.getText()).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        SwingUtilities.invokeLater(() -> statsLabel.setText("Send failed: " + error.getMessage()));
+                    }
+                });
+                messageField.setText("");
+            }
+        });
+        messageField.addActionListener(e -> sendButton.doClick());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refresh.stop();
+                if (running != null) {
+                    running.close();
+                }
+            }
+        });
+
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    private void start(Factory factory) {
+        int capacity = ((Number) capacitySpinner.getValue()).intValue();
+        Path logFile = logBox.isSelected() && !logField.getText().isBlank() ? Path.of(logField.getText()) : null;
+        EventStream stream;
+        try {
+            stream = factory.open(capacity, logFile);
+        } catch (IOException | RuntimeException ex) {
+            eventsArea.setText("Error: " + ex.getMessage());
+            return;
+        }
+        running = stream;
+        shownVersion = 0;
+        shownLengths.clear();
+        shownChars = 0;
+        eventsArea.setText("");
+        startButton.setEnabled(false);
+        pauseButton.setEnabled(true);
+        pauseButton.setText("Pause");
+        stopButton.setEnabled(true);
+        refresh.start();
+        stream.done().whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (running != stream) {
+                return;
+            }
+            refresh();
+            refresh.stop();
+            startButton.setEnabled(true);
+            pauseButton.setEnabled(false);
+            stopButton.setEnabled(false);
+            sendButton.setEnabled(false);
+        }));
+    }
+
+    private void refresh() {
+        EventStream stream = running;
+        if (stream == null) {
+            return;
+        }
+        EventRing ring = stream.ring();
+        long version = ring.version();
+        if (version != shownVersion) {
+            show(ring.range(shownVersion, version), ring.capacity());
+            shownVersion = version;
+        }
+        double seconds = stream.elapsedNanos() / 1e9;
+        statsLabel.setText(String.format("%s - %d event(s), %.1f/s, showing the last %d", stream.state(),
+                ring.total(), seconds > 0 ? ring.total() / seconds : 0, shownLengths.size()));
+        sendButton.setEnabled(stream.canSend());
+    }
+
+    // O trabalho por atualização é proporcional aos eventos novos, não à capacidade do anel
+    private void show(List<EventRing.Event> fresh, int capacity) {
+        List<String> lines = new ArrayList<>();
+        long budget = MAX_SHOWN_CHARS;
+        for (int i = fresh.size() - 1; i >= 0 && budget > 0; i--) {
+            String line = fresh.get(i) + "\n";
+            lines.add(line);
+            budget -= line.length();
+        }
+        Collections.reverse(lines);
+        // Só acompanha o fim se o usuário não rolou para cima
+        JScrollBar bar = ((JScrollPane) eventsArea.getParent().getParent()).getVerticalScrollBar();
+        boolean atBottom = bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - 4;
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line);
+            shownLengths.addLast(line.length());
+            shownChars += line.length();
+        }
+        eventsArea.append(sb.toString());
+        int cut = 0;
+        while (shownLengths.size() > 1 && (shownLengths.size() > capacity || shownChars > MAX_SHOWN_CHARS)) {
+            int length = shownLengths.removeFirst();
+            shownChars -= length;
+            cut += length;
+        }
+        if (cut > 0) {
+            eventsArea.replaceRange(null, 0, cut);
+        }
+        if (atBottom) {
+            eventsArea.setCaretPosition(eventsArea.getDocument().getLength());
+        }
+    }
+}
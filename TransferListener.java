@@ -0,0 +1,30 @@
+@FunctionalInterface
+public interface TransferListener {
+
+    TransferListener NONE = (transferred, total, elapsedNanos) -> {
+    };
+
+    // total is -1 when the size is unknown
+    void onProgress(long transferred, long total, long elapsedNanos);
+
+    static String describe(long transferred, long total, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        String rate = seconds > 0 ? humanBytes((long) (transferred / seconds)) + "/s" : "-";
+        String size = total >= 0 ? humanBytes(transferred) + " / " + humanBytes(total) : humanBytes(transferred);
+        return size + " (" + rate + ")";
+    }
+
+    static String humanBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String[] units = { "KB", "MB", "GB", "TB" };
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format("%.1f %s", value, units[unit]);
+    }
+}
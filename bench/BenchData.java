@@ -0,0 +1,41 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Dados sintéticos compartilhados pelos benchmarks
+final class BenchData {
+
+    private BenchData() {
+    }
+
+    // Array de objetos com strings, números, aninhamento e escapes até atingir ~size caracteres
+    static String json(int size) {
+        StringBuilder sb = new StringBuilder(size + 256).append('[');
+        for (int i = 0; sb.length() < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i).append(",\"name\":\"user ").append(i)
+                    .append(" \\\"quoted\\\"\",\"tags\":[\"a\",\"b\",\"c\"],\"address\":{\"city\":\"Lisbon\",\"zip\":\"1000-")
+                    .append(i % 1000).append("\"},\"active\":").append(i % 2 == 0).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    static String headers() {
+        return "Content-Type: application/json\nAccept: application/json\nAuthorization: Bearer abc.def.ghi\n"
+                + "X-Request-Id: 123e4567-e89b-12d3-a456-426614174000";
+    }
+
+    static List<HttpClientService.FormField> textFields(int count) {
+        List<HttpClientService.FormField> fields = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            fields.add(new HttpClientService.FormField("field" + i, "value " + i, false));
+        }
+        return fields;
+    }
+
+    static HistoryEntry entry(int i) {
+        return new HistoryEntry(i % 2 == 0 ? "GET" : "POST", "https://api.example.com/v1/users/" + i + "?page=" + i,
+                headers(), "Raw", json(512), textFields(i % 3));
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+import javax.net.ssl.SSLSession;
+
+import benchmarks.Subject;
+
+// Ponte entre os benchmarks (pacote benchmarks) e o código do app (pacote padrão)
+public class ServiceSubject implements Subject {
+
+    private static final String URL = "https://api.example.com/v1/users";
+
+    private HttpClientService service;
+    private final String headers = BenchData.headers();
+    private final String body = BenchData.json(2048);
+    private final List<HttpClientService.FormField> fields = BenchData.textFields(5);
+
+    private synchronized HttpClientService service() {
+        if (service == null) {
+            service = new HttpClientService();
+        }
+        return service;
+    }
+
+    @Override
+    public String json(int size) {
+        return BenchData.json(size);
+    }
+
+    @Override
+    public String prettyPrintJson(String json) {
+        return HttpClientService.prettyPrintJson(json);
+    }
+
+    @Override
+    public long filterJson(String json, String expression) {
+        try {
+            return JsonPath.compile(expression).evaluate(new StringReader(json), value -> true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String generateCurl(String bodyType) {
+        return service().generateCurl("POST", URL, headers, bodyType, body, fields);
+    }
+
+    @Override
+    public Object parseCurl(String curl) {
+        return service().parseCurl(curl);
+    }
+
+    // Os mesmos headers/corpo dos outros benchmarks, com {{id}} e {{name}} espalhados
+    @Override
+    public Object compileTemplate() {
+        List<HttpClientService.FormField> templateFields = new ArrayList<>(fields);
+        templateFields.add(new HttpClientService.FormField("owner", "{{name}}", false));
+        return RequestTemplate.compile(new HistoryEntry("POST", URL + "/{{id}}?name={{name}}", headers
+                + "\nX-Row: {{id}}", "Raw", body.replace("\"id\":1,", "\"id\":{{id}},"), templateFields));
+    }
+
+    @Override
+    public Object renderTemplate(Object template, Map<String, String> values) {
+        return ((RequestTemplate) template).render(values);
+    }
+
+    @Override
+    public HttpRequest.BodyPublisher multipart(Path file) {
+        List<HttpClientService.FormField> all = new ArrayList<>(fields);
+        all.add(new HttpClientService.FormField("upload", file.toString(), true));
+        try {
+            return MultipartBodyPublisher.of(all, "---JavaBoundaryBench", null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Passa os bytes pelo mesmo BodySubscriber usado no envio real
+    @Override
+    public HttpResponse<?> response(String contentType, byte[] bytes) {
+        HttpHeaders responseHeaders = HttpHeaders.of(Map.of("Content-Type", List.of(contentType), "X-Trace",
+                List.of("abc")), (k, v) -> true);
+        HttpResponse.ResponseInfo info = new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return responseHeaders;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+        HttpResponse.BodySubscriber<ResponseBody> subscriber = ResponseBody.handler(Long.MAX_VALUE, null).apply(info);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onNext(List.of(ByteBuffer.wrap(bytes)));
+        subscriber.onComplete();
+        return new StubResponse(responseHeaders, subscriber.getBody().toCompletableFuture().join());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String formatResponse(HttpResponse<?> response) {
+        return service().formatResponse((HttpResponse<ResponseBody>) response);
+    }
+
+    @Override
+    public String encodeEntry(int i) {
+        return BenchData.entry(i).encode();
+    }
+
+    @Override
+    public Object decodeEntry(String line) {
+        return HistoryEntry.decode(line);
+    }
+
+    @Override
+    public AutoCloseable openHistory(Path dir) {
+        try {
+            return new HistoryStore(dir.resolve("history"), dir.resolve("history.idx"), null, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void append(AutoCloseable history, int i) throws IOException {
+        ((HistoryStore) history).append(BenchData.entry(i)).join();
+    }
+
+    @Override
+    public int historySize(AutoCloseable history) {
+        return ((HistoryStore) history).size();
+    }
+
+    @Override
+    public Object read(AutoCloseable history, int position) throws IOException {
+        return ((HistoryStore) history).read(position);
+    }
+
+    @Override
+    public Object readSummary(AutoCloseable history, int position) throws IOException {
+        return ((HistoryStore) history).readSummary(position);
+    }
+
+    @Override
+    public void forEach(AutoCloseable history, Consumer<Object> consumer) throws IOException {
+        ((HistoryStore) history).forEach((entry, position) -> consumer.accept(entry));
+    }
+
+    @Override
+    public String send(String method, String url, String body) throws Exception {
+        return service().sendHttpRequest(method, url, "", "Raw", body, List.of());
+    }
+
+    @Override
+    public Object sendAsync(String method, String url, String body) throws Exception {
+        return service().sendHttpRequestAsync(method, url, "", "Raw", body, List.of(), Duration.ofSeconds(10), null,
+                null).get();
+    }
+
+    static class StubResponse implements HttpResponse<ResponseBody> {
+        private final HttpHeaders headers;
+        private final ResponseBody body;
+
+        StubResponse(HttpHeaders headers, ResponseBody body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<ResponseBody>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public ResponseBody body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create("http://localhost/bench");
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
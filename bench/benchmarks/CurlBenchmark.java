@@ -0,0 +1,38 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurlBenchmark {
+
+    Subject subject;
+    String curl;
+
+    @Setup
+    public void setUp() {
+        subject = Subject.load();
+        curl = subject.generateCurl("Raw");
+    }
+
+    @Benchmark
+    public String generateCurlRaw() {
+        return subject.generateCurl("Raw");
+    }
+
+    @Benchmark
+    public String generateCurlForm() {
+        return subject.generateCurl("Form-Data");
+    }
+
+    @Benchmark
+    public Object parseCurl() {
+        return subject.parseCurl(curl);
+    }
+}
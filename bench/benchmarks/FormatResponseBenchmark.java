@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatResponseBenchmark {
+
+    @Param({ "1024", "1048576" })
+    int size;
+
+    Subject subject;
+    HttpResponse<?> response;
+
+    @Setup
+    public void setUp() {
+        subject = Subject.load();
+        response = subject.response("application/json", subject.json(size).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String formatResponse() {
+        return subject.formatResponse(response);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryBenchmark {
+
+    @Param({ "10000" })
+    int entries;
+
+    Subject subject;
+    Path dir;
+    Path closedDir; // cópia fechada, só para open(): dois stores no mesmo diretório brigam pelos segmentos
+    AutoCloseable history;
+    String encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        subject = Subject.load();
+        closedDir = Files.createTempDirectory("history-bench-closed");
+        try (AutoCloseable filled = subject.openHistory(closedDir)) {
+            for (int i = 0; i < entries; i++) {
+                subject.append(filled, i);
+            }
+        }
+        dir = Files.createTempDirectory("history-bench");
+        try (Stream<Path> files = Files.walk(closedDir)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, dir.resolve(closedDir.relativize(file).toString()),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        history = subject.openHistory(dir);
+        encoded = subject.encodeEntry(42);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        history.close();
+        delete(dir);
+        delete(closedDir);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String encode() {
+        return subject.encodeEntry(42);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return subject.decodeEntry(encoded);
+    }
+
+    @Benchmark
+    public Object readRandom() throws Exception {
+        return subject.read(history, ThreadLocalRandom.current().nextInt(entries));
+    }
+
+    @Benchmark
+    public Object readSummaryRandom() throws Exception {
+        return subject.readSummary(history, ThreadLocalRandom.current().nextInt(entries));
+    }
+
+    // Equivalente ao antigo loadHistory: lê e decodifica o histórico inteiro
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void loadAll(Blackhole blackhole) throws Exception {
+        subject.forEach(history, blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int open() throws Exception {
+        try (AutoCloseable reopened = subject.openHistory(closedDir)) {
+            return subject.historySize(reopened);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({ "1024", "1048576", "104857600" })
+    int size;
+
+    Subject subject;
+    String json;
+
+    @Setup
+    public void setUp() {
+        subject = Subject.load();
+        json = subject.json(size);
+    }
+
+    @Benchmark
+    public String prettyPrintJson() {
+        return subject.prettyPrintJson(json);
+    }
+
+    // Filtro da resposta: lê tudo, mas só os valores encontrados viram String
+    @Benchmark
+    public long filterIds() {
+        return subject.filterJson(json, "$[*].id");
+    }
+
+    @Benchmark
+    public long filterPredicate() {
+        return subject.filterJson(json, "$[?(@.address.zip == '1000-7')].name");
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultipartBenchmark {
+
+    @Param({ "1024", "1048576", "67108864" })
+    int fileSize;
+
+    Subject subject;
+    Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        subject = Subject.load();
+        file = Files.createTempFile("multipart-bench", ".bin");
+        Files.write(file, new byte[fileSize]);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Monta o corpo multipart e consome todos os bytes, como o HttpClient faria ao enviar
+    @Benchmark
+    public long buildMultipartBody() throws Exception {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        subject.multipart(file).subscribe(new Flow.Subscriber<ByteBuffer>() {
+            long bytes;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                bytes += item.remaining();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(bytes);
+            }
+        });
+        return done.get();
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Round trip completo (montagem, envio, leitura e formatação) contra o StubServer local
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    Subject subject;
+    StubServer stub;
+    String jsonUrl;
+    String bytesUrl;
+    String echoUrl;
+    String body;
+
+    @Setup
+    public void setUp() throws Exception {
+        subject = Subject.load();
+        stub = new StubServer(0);
+        jsonUrl = stub.baseUrl() + "/json";
+        bytesUrl = stub.baseUrl() + "/bytes?size=1048576";
+        echoUrl = stub.baseUrl() + "/echo";
+        body = subject.json(4096);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Benchmark
+    public String getJson() throws Exception {
+        return subject.send("GET", jsonUrl, "");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String getJsonConcurrent() throws Exception {
+        return subject.send("GET", jsonUrl, "");
+    }
+
+    @Benchmark
+    public String getOneMegabyte() throws Exception {
+        return subject.send("GET", bytesUrl, "");
+    }
+
+    @Benchmark
+    public String postEcho() throws Exception {
+        return subject.send("POST", echoUrl, body);
+    }
+
+    @Benchmark
+    public Object getJsonAsync() throws Exception {
+        return subject.sendAsync("GET", jsonUrl, "");
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+// Servidor HTTP local para medir o round trip do sendHttpRequest sem depender da rede.
+// /json devolve um JSON pequeno, /bytes?size=N devolve N bytes, /echo devolve o corpo recebido.
+public class StubServer implements AutoCloseable {
+
+    private static final byte[] JSON = "{\"id\":1,\"name\":\"stub\",\"tags\":[\"a\",\"b\"],\"active\":true}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+
+    public StubServer(int port) throws IOException {
+        // Sem isso o Nagle + delayed ACK prende cada resposta pequena por ~40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/json", exchange -> {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, JSON.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(JSON);
+            }
+        });
+        server.createContext("/bytes", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            int size = query != null && query.startsWith("size=") ? Integer.parseInt(query.substring(5)) : 1024;
+            byte[] chunk = new byte[8192];
+            Arrays.fill(chunk, (byte) 'x');
+            exchange.sendResponseHeaders(200, size);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int left = size; left > 0; left -= chunk.length) {
+                    out.write(chunk, 0, Math.min(left, chunk.length));
+                }
+            }
+        });
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        StubServer stub = new StubServer(args.length > 0 ? Integer.parseInt(args[0]) : 8089);
+        System.out.println("Stub server listening on " + stub.baseUrl());
+    }
+}
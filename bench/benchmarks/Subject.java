@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// O JMH exige benchmarks em pacote nomeado, mas o código do app está no pacote padrão, que não pode ser
+// importado daqui. O ServiceSubject (pacote padrão) implementa esta interface e é carregado pelo nome;
+// os tipos do app atravessam a fronteira como Object.
+public interface Subject {
+
+    static Subject load() {
+        try {
+            return (Subject) Class.forName("ServiceSubject").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    String json(int size);
+
+    String prettyPrintJson(String json);
+
+    long filterJson(String json, String expression);
+
+    String generateCurl(String bodyType);
+
+    Object parseCurl(String curl);
+
+    Object compileTemplate();
+
+    Object renderTemplate(Object template, Map<String, String> values);
+
+    HttpRequest.BodyPublisher multipart(Path file);
+
+    HttpResponse<?> response(String contentType, byte[] body);
+
+    String formatResponse(HttpResponse<?> response);
+
+    String encodeEntry(int i);
+
+    Object decodeEntry(String line);
+
+    AutoCloseable openHistory(Path dir);
+
+    void append(AutoCloseable history, int i) throws Exception;
+
+    int historySize(AutoCloseable history);
+
+    Object read(AutoCloseable history, int position) throws Exception;
+
+    Object readSummary(AutoCloseable history, int position) throws Exception;
+
+    void forEach(AutoCloseable history, Consumer<Object> consumer) throws Exception;
+
+    String send(String method, String url, String body) throws Exception;
+
+    Object sendAsync(String method, String url, String body) throws Exception;
+}
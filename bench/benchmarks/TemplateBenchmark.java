@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    Subject subject;
+    Object template;
+    Map<String, String> row = Map.of("id", "12345", "name", "alice");
+
+    @Setup
+    public void setUp() {
+        subject = Subject.load();
+        template = subject.compileTemplate();
+    }
+
+    // Uma linha de dados com o template já compilado (o caminho do --rows)
+    @Benchmark
+    public Object render() {
+        return subject.renderTemplate(template, row);
+    }
+
+    @Benchmark
+    public Object compileAndRender() {
+        return subject.renderTemplate(subject.compileTemplate(), row);
+    }
+}